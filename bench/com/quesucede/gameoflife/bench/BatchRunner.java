@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.quesucede.gameoflife.engine.Engines;
+import com.quesucede.gameoflife.engine.FiniteEngine;
+import com.quesucede.gameoflife.engine.LifeEngine;
+import com.quesucede.gameoflife.engine.PatternReader;
+import com.quesucede.gameoflife.engine.PatternWriter;
+import com.quesucede.gameoflife.engine.Rule;
+import com.quesucede.gameoflife.engine.Topology;
+
+/**
+ * Runs the simulation engines without the Android UI, for regression and
+ * throughput runs on machines with no device.  Like the benchmark it only
+ * depends on the pure Java engine package:
+ *
+ * <pre>
+ * javac -d out src/com/quesucede/gameoflife/engine/*.java \
+ *     bench/com/quesucede/gameoflife/bench/*.java
+ * java -cp out com.quesucede.gameoflife.bench.BatchRunner \
+ *     [-pattern gun.rle] [-fill 0.35] [-engine bitgrid] [-rule B3/S23]
+ *     [-size 256x256] [-topology torus] [-generations 1000]
+ *     [-seed 1] [-runs 1] [-threads 1] [-every 1] [-out results]
+ * </pre>
+ *
+ * Every run loads the pattern centered on the board, if any, and fills the
+ * board at random with the given density, from its own seed: the first
+ * run uses the seed given and each next run the one after.  It then
+ * computes the generations and writes, in the output directory, the final
+ * board as run-SEED.rle and the population every so many generations as
+ * run-SEED.csv.  Runs are spread over the threads, and a summary line per
+ * run and a total are printed when they are all done.  The rule of the
+ * pattern is used unless one is given, then Conway's.
+ */
+public final class BatchRunner {
+
+	private File _pattern;
+	private double _fill = -1;
+	private String _engine = Engines.BIT_GRID;
+	private Rule _rule;
+	private int _height = 256;
+	private int _width = 256;
+	private Topology _topology = Topology.TORUS;
+	private long _generations = 1000;
+	private long _seed = 1;
+	private int _runs = 1;
+	private int _threads = 1;
+	private int _every = 1;
+	private File _out = new File(".");
+
+	/**
+	 * Outcome of one run.
+	 */
+	private static final class Result {
+		long seed;
+		long nanos;
+		long population;
+		long generation;
+	}
+
+	private BatchRunner() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		BatchRunner runner = new BatchRunner();
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 == args.length) {
+				throw new IllegalArgumentException("Option " + args[i]
+						+ " needs a value.");
+			}
+			String value = args[i + 1];
+			if (args[i].equals("-pattern")) {
+				runner._pattern = new File(value);
+			} else if (args[i].equals("-fill")) {
+				runner._fill = Double.parseDouble(value);
+			} else if (args[i].equals("-engine")) {
+				runner._engine = value;
+			} else if (args[i].equals("-rule")) {
+				runner._rule = Rule.parse(value);
+			} else if (args[i].equals("-size")) {
+				int by = value.indexOf('x');
+				if (by < 0) {
+					runner._height = runner._width = Integer.parseInt(value);
+				} else {
+					runner._width = Integer.parseInt(value.substring(0, by));
+					runner._height = Integer.parseInt(value.substring(by + 1));
+				}
+			} else if (args[i].equals("-topology")) {
+				runner._topology = Topology.fromName(value);
+			} else if (args[i].equals("-generations")) {
+				runner._generations = Long.parseLong(value);
+			} else if (args[i].equals("-seed")) {
+				runner._seed = Long.parseLong(value);
+			} else if (args[i].equals("-runs")) {
+				runner._runs = Integer.parseInt(value);
+			} else if (args[i].equals("-threads")) {
+				runner._threads = Integer.parseInt(value);
+			} else if (args[i].equals("-every")) {
+				runner._every = Math.max(1, Integer.parseInt(value));
+			} else if (args[i].equals("-out")) {
+				runner._out = new File(value);
+			} else {
+				throw new IllegalArgumentException("Unknown option "
+						+ args[i] + ".");
+			}
+		}
+		if (runner._fill < 0) {
+			// Without a pattern, the board starts as a random soup.
+			runner._fill = (runner._pattern == null) ? 0.35 : 0;
+		}
+		if (!runner._out.isDirectory() && !runner._out.mkdirs()) {
+			throw new IOException("Cannot create " + runner._out + ".");
+		}
+		runner.runAll();
+	}
+
+	/**
+	 * Runs every seed over the threads and prints the summary.
+	 */
+	private void runAll() throws InterruptedException, IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+				_threads));
+		List<Future<Result>> futures = new ArrayList<Future<Result>>();
+		for (int r = 0; r < _runs; r++) {
+			final long seed = _seed + r;
+			futures.add(executor.submit(new Callable<Result>() {
+				public Result call() throws IOException {
+					return run(seed);
+				}
+			}));
+		}
+
+		System.out.println(String.format(Locale.US, "%-8s %-9s %10s %10s "
+				+ "%12s %12s %14s", "seed", "engine", "gens", "ms", "gen/s",
+				"population", "cells/s"));
+		long start = System.nanoTime();
+		long generations = 0;
+		try {
+			for (int r = 0; r < futures.size(); r++) {
+				Result result;
+				try {
+					result = futures.get(r).get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					}
+					throw new RuntimeException(cause);
+				}
+				double seconds = result.nanos / 1e9;
+				System.out.println(String.format(Locale.US, "%-8d %-9s %10d "
+						+ "%10.1f %12.1f %12d %14.4g", result.seed, _engine,
+						result.generation, result.nanos / 1e6,
+						_generations / seconds, result.population,
+						_generations * (double) _height * _width / seconds));
+				generations += _generations;
+			}
+		} finally {
+			executor.shutdown();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format(Locale.US, "%-8s %-9s %10d %10.1f "
+				+ "%12.1f %12s %14.4g", "total", _engine, generations,
+				seconds * 1e3, generations / seconds, "",
+				generations * (double) _height * _width / seconds));
+	}
+
+	/**
+	 * Runs one seed and writes its final board and population curve.
+	 */
+	private Result run(long seed) throws IOException {
+		LifeEngine engine = Engines.create(_engine, _height, _width);
+		if (engine instanceof FiniteEngine) {
+			((FiniteEngine) engine).setTopology(_topology);
+		}
+		Rule rule = _rule;
+		if (_pattern != null) {
+			Reader in = new InputStreamReader(new FileInputStream(_pattern),
+					"UTF-8");
+			try {
+				Rule patternRule = new PatternReader(in).read(engine,
+						_height / 2, _width / 2);
+				if (rule == null) {
+					rule = patternRule;
+				}
+			} finally {
+				in.close();
+			}
+		}
+		engine.setRule((rule == null) ? Rule.CONWAY : rule);
+		if (_fill > 0) {
+			Random random = new Random(seed);
+			for (int y = 0; y < _height; y++) {
+				for (int x = 0; x < _width; x++) {
+					if (random.nextDouble() < _fill) {
+						engine.setAlive(y, x, true);
+					}
+				}
+			}
+		}
+
+		Result result = new Result();
+		result.seed = seed;
+		Writer curve = open("run-" + seed + ".csv");
+		try {
+			curve.write("generation,population\n");
+			curve.write(engine.getGeneration() + "," + engine.getPopulation()
+					+ "\n");
+			long start = System.nanoTime();
+			long stepping = 0;
+			for (long g = 1; g <= _generations; g++) {
+				engine.step();
+				if (g % _every == 0 || g == _generations) {
+					// Writing the curve is left out of the timing.
+					stepping += System.nanoTime() - start;
+					curve.write(engine.getGeneration() + ","
+							+ engine.getPopulation() + "\n");
+					start = System.nanoTime();
+				}
+			}
+			result.nanos = stepping + System.nanoTime() - start;
+		} finally {
+			curve.close();
+		}
+		result.population = engine.getPopulation();
+		result.generation = engine.getGeneration();
+
+		Writer board = open("run-" + seed + ".rle");
+		try {
+			new PatternWriter(board).writeRle(engine);
+		} finally {
+			board.close();
+		}
+		return result;
+	}
+
+	private Writer open(String name) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(new File(_out, name)), "UTF-8"));
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.quesucede.gameoflife.engine.BitGrid;
+import com.quesucede.gameoflife.engine.Engines;
+import com.quesucede.gameoflife.engine.LifeEngine;
+
+/**
+ * Benchmark of the simulation engines on a desktop JVM, for numbers before
+ * and after every engine change.  It only depends on the pure Java engine
+ * package, so it needs no build tooling beyond javac:
+ *
+ * <pre>
+ * javac -d out src/com/quesucede/gameoflife/engine/*.java \
+ *     bench/com/quesucede/gameoflife/bench/*.java
+ * java -cp out com.quesucede.gameoflife.bench.EngineBenchmark \
+ *     [-engines bitgrid,counting] [-sizes 64,1024] [-patterns random35]
+ *     [-warmup 1000] [-time 2000] [-maxcells 4194304] [-threads 4]
+ * </pre>
+ *
+ * Every engine, board size and pattern combination is first stepped for
+ * the warmup time, then for the measurement time, and reported as
+ * generations per second, cells per second and bytes allocated per
+ * generation on the stepping thread.  A second measurement counts the
+ * neighbors of every cell of the board the way a colored view does.
+ * Engines other than the bit grid skip boards of more than maxcells cells,
+ * which would not fit in a default heap.
+ */
+public final class EngineBenchmark {
+
+	// Patterns the boards can be seeded with.
+	private static final String[] PATTERNS = { "empty", "random10",
+			"random35", "random50", "stills", "guns" };
+
+	private static final String[] ENGINES = { Engines.BIT_GRID,
+			Engines.COUNTING_GRID, Engines.SPARSE_GRID, Engines.HASH_LIFE };
+
+	private static final int[] SIZES = { 64, 256, 1024, 2048, 8192 };
+
+	// Gosper glider gun, as {row, column} pairs.
+	private static final int[][] GLIDER_GUN = { { 0, 24 }, { 1, 22 },
+			{ 1, 24 }, { 2, 12 }, { 2, 13 }, { 2, 20 }, { 2, 21 }, { 2, 34 },
+			{ 2, 35 }, { 3, 11 }, { 3, 15 }, { 3, 20 }, { 3, 21 }, { 3, 34 },
+			{ 3, 35 }, { 4, 0 }, { 4, 1 }, { 4, 10 }, { 4, 16 }, { 4, 20 },
+			{ 4, 21 }, { 5, 0 }, { 5, 1 }, { 5, 10 }, { 5, 14 }, { 5, 16 },
+			{ 5, 17 }, { 5, 22 }, { 5, 24 }, { 6, 10 }, { 6, 16 }, { 6, 24 },
+			{ 7, 11 }, { 7, 15 }, { 8, 12 }, { 8, 13 } };
+
+	// Block and beehive still lifes, as {row, column} pairs.
+	private static final int[][] BLOCK = { { 0, 0 }, { 0, 1 }, { 1, 0 },
+			{ 1, 1 } };
+	private static final int[][] BEEHIVE = { { 0, 1 }, { 0, 2 }, { 1, 0 },
+			{ 1, 3 }, { 2, 1 }, { 2, 2 } };
+
+	private static final long SEED = 20121105L;
+
+	private long _warmupMillis = 1000;
+	private long _measureMillis = 2000;
+	private long _maxCells = 2048L * 2048L;
+	private int _threads = 1;
+
+	private EngineBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		EngineBenchmark benchmark = new EngineBenchmark();
+		String[] engines = ENGINES;
+		String[] patterns = PATTERNS;
+		int[] sizes = SIZES;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			if (args[i].equals("-engines")) {
+				engines = value.split(",");
+			} else if (args[i].equals("-patterns")) {
+				patterns = value.split(",");
+			} else if (args[i].equals("-sizes")) {
+				String[] names = value.split(",");
+				sizes = new int[names.length];
+				for (int s = 0; s < names.length; s++) {
+					sizes[s] = Integer.parseInt(names[s]);
+				}
+			} else if (args[i].equals("-warmup")) {
+				benchmark._warmupMillis = Long.parseLong(value);
+			} else if (args[i].equals("-time")) {
+				benchmark._measureMillis = Long.parseLong(value);
+			} else if (args[i].equals("-maxcells")) {
+				benchmark._maxCells = Long.parseLong(value);
+			} else if (args[i].equals("-threads")) {
+				benchmark._threads = Integer.parseInt(value);
+			} else {
+				throw new IllegalArgumentException("Unknown option "
+						+ args[i] + ".");
+			}
+		}
+
+		System.out.println(String.format(Locale.US,
+				"%-9s %6s %-9s %12s %14s %12s %14s", "engine", "size",
+				"pattern", "gen/s", "cells/s", "bytes/gen", "neighbors/s"));
+		for (int e = 0; e < engines.length; e++) {
+			for (int s = 0; s < sizes.length; s++) {
+				for (int p = 0; p < patterns.length; p++) {
+					benchmark.run(engines[e], sizes[s], patterns[p]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Measures one engine, board size and pattern, and prints a result
+	 * line.
+	 */
+	private void run(String engineName, int size, String pattern) {
+		long cells = (long) size * size;
+		if (cells > _maxCells && !engineName.equals(Engines.BIT_GRID)) {
+			return;
+		}
+		LifeEngine engine = Engines.create(engineName, size, size);
+		ExecutorService executor = null;
+		if (_threads > 1 && engine instanceof BitGrid) {
+			executor = Executors.newFixedThreadPool(_threads - 1);
+			((BitGrid) engine).setExecutor(executor, _threads);
+		}
+		try {
+			seed(engine, pattern, size);
+
+			step(engine, _warmupMillis);
+			long allocatedBefore = allocatedBytes();
+			long start = System.nanoTime();
+			long generations = step(engine, _measureMillis);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			long allocated = allocatedBytes();
+			String perGeneration = (allocatedBefore < 0) ? "n/a"
+					: Long.toString((allocated - allocatedBefore)
+							/ generations);
+
+			double generationsPerSecond = generations / seconds;
+			long neighborsPerSecond = countNeighbors(engine, size);
+			System.out.println(String.format(Locale.US,
+					"%-9s %6d %-9s %12.1f %14.4g %12s %14.4g", engineName,
+					size, pattern, generationsPerSecond,
+					generationsPerSecond * cells, perGeneration,
+					(double) neighborsPerSecond));
+		} catch (OutOfMemoryError e) {
+			System.out.println(String.format(Locale.US, "%-9s %6d %-9s %s",
+					engineName, size, pattern, "out of memory"));
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Steps an engine for at least the given time.
+	 *
+	 * @return the number of generations computed.
+	 */
+	private static long step(LifeEngine engine, long millis) {
+		long end = System.nanoTime() + millis * 1000000L;
+		long generations = 0;
+		do {
+			engine.step();
+			generations++;
+		} while (System.nanoTime() < end);
+		return generations;
+	}
+
+	/**
+	 * Counts the neighbors of every cell of the board for a while.
+	 *
+	 * @return the number of cells counted per second.
+	 */
+	private long countNeighbors(LifeEngine engine, int size) {
+		long end = System.nanoTime() + _measureMillis * 1000000L / 4;
+		long start = System.nanoTime();
+		long counted = 0;
+		long total = 0;
+		do {
+			for (int y = 0; y < size; y++) {
+				for (int x = 0; x < size; x++) {
+					total += engine.countNeighbors(y, x);
+				}
+			}
+			counted += (long) size * size;
+		} while (System.nanoTime() < end);
+		// Keeps the counting from being optimized away.
+		if (total == Long.MIN_VALUE) {
+			System.out.println(total);
+		}
+		return (long) (counted / ((System.nanoTime() - start) / 1e9));
+	}
+
+	/**
+	 * Seeds the board with one of the named patterns.
+	 */
+	private static void seed(LifeEngine engine, String pattern, int size) {
+		Random random = new Random(SEED);
+		engine.clear();
+		if (pattern.startsWith("random")) {
+			int percent = Integer.parseInt(pattern.substring(6));
+			for (int y = 0; y < size; y++) {
+				for (int x = 0; x < size; x++) {
+					if (random.nextInt(100) < percent) {
+						engine.setAlive(y, x, true);
+					}
+				}
+			}
+		} else if (pattern.equals("stills")) {
+			// A block or a beehive in every 8 by 8 square.
+			for (int y = 0; y + 8 <= size; y += 8) {
+				for (int x = 0; x + 8 <= size; x += 8) {
+					place(engine, random.nextBoolean() ? BLOCK : BEEHIVE,
+							y + 2, x + 2);
+				}
+			}
+		} else if (pattern.equals("guns")) {
+			// A glider gun in every 64 by 64 square.
+			for (int y = 0; y + 64 <= size; y += 64) {
+				for (int x = 0; x + 64 <= size; x += 64) {
+					place(engine, GLIDER_GUN, y + 4, x + 4);
+				}
+			}
+		} else if (!pattern.equals("empty")) {
+			throw new IllegalArgumentException("Unknown pattern " + pattern
+					+ ".");
+		}
+	}
+
+	private static void place(LifeEngine engine, int[][] cells, int y, int x) {
+		for (int i = 0; i < cells.length; i++) {
+			engine.setAlive(y + cells[i][0], x + cells[i][1], true);
+		}
+	}
+
+	/**
+	 * @return the bytes allocated so far by the calling thread, or -1 when
+	 *          the JVM cannot tell.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		try {
+			// Only HotSpot based JVMs offer this, through their own bean.
+			Method method = Class.forName("com.sun.management.ThreadMXBean")
+					.getMethod("getThreadAllocatedBytes", long.class);
+			return ((Long) method.invoke(threads,
+					Long.valueOf(Thread.currentThread().getId())))
+					.longValue();
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+}
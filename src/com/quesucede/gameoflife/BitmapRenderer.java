@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.quesucede.gameoflife.engine.Frame;
+
+/**
+ * Renderer keeping one pixel per cell in square bitmap tiles, each scaled up
+ * to the cell size and drawn with a single blit.  Tiles are only kept for
+ * the part of the board in view, their bitmaps being reused as the view
+ * moves, so the memory taken by pixels follows the size of the screen and
+ * not of the board.  Only the pixels of cells whose color may have changed
+ * since the previous frame are rewritten: the cells that were born or died
+ * and, since the color depends on the neighbor count, the cells around
+ * them.  Frames list the words of cells changed since an earlier frame, so
+ * finding the changes takes time in proportion to them, and whole frames
+ * are only compared when the list is missing or starts after the frame
+ * rendered last.
+ */
+public class BitmapRenderer {
+
+	// Tiles are one word of every row wide and as many rows high.
+	private static final int TILE_SHIFT = 6;
+	private static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+	/**
+	 * Bitmap of the cells of a tile in view.
+	 */
+	private static final class Tile {
+		int row;
+		int column;
+		Bitmap bitmap;
+
+		// Whether the pixels show the frame rendered last.
+		boolean painted;
+	}
+
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+	private final long lastWordMask;
+
+	// Tiles in view by row and column of tiles, or null, the number in
+	// view in each row of tiles, and the same tiles as a list.
+	private final int tileColumns;
+	private final Tile[] _tiles;
+	private final int[] _tilesInRow;
+	private final List<Tile> _shown = new ArrayList<Tile>();
+
+	// Bitmaps of tiles that went out of view, to be reused.
+	private final List<Bitmap> _spare = new ArrayList<Bitmap>();
+
+	// Pixels of a tile or of one of its rows, before they are copied to
+	// the bitmap of the tile.
+	private final int[] _pixels = new int[TILE_SIZE * TILE_SIZE];
+
+	// Cells of the frame rendered last, and the cells that changed since.
+	private final long[] _rendered;
+	private final long[] _changed;
+
+	// Dirty cells of the row being updated.
+	private final long[] _dirty;
+
+	// Rows next to a changed word, flagged and listed.
+	private final boolean[] _isRowChanged;
+	private final int[] _changedRows;
+	private int _changedRowCount;
+
+	// Number of the frame rendered last, or -1.
+	private long _renderedSerial = -1;
+
+	// Colors of living cells by neighbor count, and of dead cells.
+	private final int[] _colors = new int[9];
+	private int _background;
+	private boolean _uniform;
+
+	// Whether every pixel has to be rewritten on the next frame.
+	private boolean _invalid = true;
+
+	private final Rect _source = new Rect();
+	private final RectF _destination = new RectF();
+	private final Paint _paint = new Paint();
+
+	/**
+	 * Constructor for the BitmapRenderer class.
+	 * 
+	 * @param height - number of rows of the board.
+	 * @param width - number of columns of the board.
+	 */
+	public BitmapRenderer(int height, int width) {
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) >>> 6;
+		this.lastWordMask = -1L >>> (wordsPerRow * 64 - width);
+		this.tileColumns = wordsPerRow;
+		int tileRows = (height + TILE_SIZE - 1) >>> TILE_SHIFT;
+		this._tiles = new Tile[tileRows * tileColumns];
+		this._tilesInRow = new int[tileRows];
+		this._rendered = new long[height * wordsPerRow];
+		this._changed = new long[height * wordsPerRow];
+		this._dirty = new long[wordsPerRow];
+		this._isRowChanged = new boolean[height];
+		this._changedRows = new int[height];
+		// Scaling must keep the cells sharp.
+		_paint.setFilterBitmap(false);
+	}
+
+	/**
+	 * Sets the colors the cells are painted in, which repaints every cell on
+	 * the next frame.
+	 * 
+	 * @param colors - colors of living cells, indexed by neighbor count.
+	 * @param background - color of dead cells.
+	 */
+	public void setColors(int[] colors, int background) {
+		System.arraycopy(colors, 0, _colors, 0, _colors.length);
+		_background = background;
+		_uniform = true;
+		for (int n = 1; n < _colors.length; n++) {
+			_uniform &= _colors[n] == _colors[0];
+		}
+		_invalid = true;
+	}
+
+	/**
+	 * Brings the pixels in view up to date with a frame and draws them.
+	 * 
+	 * @param canvas - the canvas of the view.
+	 * @param frame - the generation to draw, of the size of the renderer.
+	 * @param viewport - the part of the board in view.
+	 */
+	public void draw(Canvas canvas, Frame frame, Viewport viewport) {
+		if (_invalid) {
+			findChanges(frame);
+			clearChanges();
+			for (int t = 0; t < _shown.size(); t++) {
+				_shown.get(t).painted = false;
+			}
+			_invalid = false;
+		} else if (frame.getSerial() != _renderedSerial) {
+			if (frame.getChangedWordCount() >= 0 && _renderedSerial >= 0
+					&& frame.getChangesSince() <= _renderedSerial) {
+				readChanges(frame);
+			} else {
+				findChanges(frame);
+			}
+			updateRows(frame);
+			clearChanges();
+		}
+		_renderedSerial = frame.getSerial();
+
+		int firstRow = viewport.getFirstRow() >>> TILE_SHIFT;
+		int lastRow = viewport.getLastRow() >>> TILE_SHIFT;
+		int firstColumn = viewport.getFirstColumn() >>> TILE_SHIFT;
+		int lastColumn = viewport.getLastColumn() >>> TILE_SHIFT;
+		hideTiles(firstRow, lastRow, firstColumn, lastColumn);
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				Tile tile = showTile(row, column);
+				if (!tile.painted) {
+					paintTile(frame, tile);
+				}
+				int top = row << TILE_SHIFT;
+				int left = column << TILE_SHIFT;
+				int bottom = Math.min(top + TILE_SIZE, height);
+				int right = Math.min(left + TILE_SIZE, width);
+				_source.set(0, 0, right - left, bottom - top);
+				_destination.set(viewport.toViewX(left),
+						viewport.toViewY(top), viewport.toViewX(right),
+						viewport.toViewY(bottom));
+				canvas.drawBitmap(tile.bitmap, _source, _destination, _paint);
+			}
+		}
+	}
+
+	/**
+	 * Takes the tiles out of view off the board, keeping their bitmaps for
+	 * the tiles coming into view.
+	 */
+	private void hideTiles(int firstRow, int lastRow, int firstColumn,
+			int lastColumn) {
+		for (int t = _shown.size() - 1; t >= 0; t--) {
+			Tile tile = _shown.get(t);
+			if (tile.row < firstRow || tile.row > lastRow
+					|| tile.column < firstColumn || tile.column > lastColumn) {
+				_tiles[tile.row * tileColumns + tile.column] = null;
+				_tilesInRow[tile.row]--;
+				_spare.add(tile.bitmap);
+				_shown.remove(t);
+			}
+		}
+		// Bitmaps of a wider view are let go once the view shrinks.
+		int inView = (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1);
+		while (_spare.size() > inView) {
+			_spare.remove(_spare.size() - 1).recycle();
+		}
+	}
+
+	/**
+	 * @return the tile at a row and column of tiles, which is given a
+	 *          bitmap to paint if it was not in view.
+	 */
+	private Tile showTile(int row, int column) {
+		Tile tile = _tiles[row * tileColumns + column];
+		if (tile != null) {
+			return tile;
+		}
+		tile = new Tile();
+		tile.row = row;
+		tile.column = column;
+		tile.bitmap = _spare.isEmpty()
+				? Bitmap.createBitmap(TILE_SIZE, TILE_SIZE,
+						Bitmap.Config.ARGB_8888)
+				: _spare.remove(_spare.size() - 1);
+		_tiles[row * tileColumns + column] = tile;
+		_tilesInRow[row]++;
+		_shown.add(tile);
+		return tile;
+	}
+
+	/**
+	 * Writes every pixel of a tile.
+	 */
+	private void paintTile(Frame frame, Tile tile) {
+		int top = tile.row << TILE_SHIFT;
+		int rows = Math.min(TILE_SIZE, height - top);
+		for (int r = 0; r < rows; r++) {
+			paintWord(frame, top + r, tile.column, r * TILE_SIZE);
+		}
+		tile.bitmap.setPixels(_pixels, 0, TILE_SIZE, 0, 0,
+				Math.min(TILE_SIZE, width - (tile.column << TILE_SHIFT)),
+				rows);
+		tile.painted = true;
+	}
+
+	/**
+	 * Rewrites the words of the flagged rows holding dirty cells, in the
+	 * tiles in view.  Tiles out of view are painted whole once they come
+	 * into view.
+	 */
+	private void updateRows(Frame frame) {
+		for (int r = 0; r < _changedRowCount; r++) {
+			int y = _changedRows[r];
+			int row = y >>> TILE_SHIFT;
+			if (_tilesInRow[row] == 0 || !markDirty(y)) {
+				continue;
+			}
+			for (int i = 0; i < wordsPerRow; i++) {
+				Tile tile = _tiles[row * tileColumns + i];
+				if (_dirty[i] == 0 || tile == null || !tile.painted) {
+					continue;
+				}
+				paintWord(frame, y, i, 0);
+				tile.bitmap.setPixels(_pixels, 0, TILE_SIZE, 0,
+						y & (TILE_SIZE - 1),
+						Math.min(TILE_SIZE, width - (i << TILE_SHIFT)), 1);
+			}
+		}
+	}
+
+	/**
+	 * Writes the colors of the cells of a word of a row to the pixels.
+	 * 
+	 * @param y - the row.
+	 * @param i - the index of the word within the row.
+	 * @param offset - where the pixels of the word start.
+	 */
+	private void paintWord(Frame frame, int y, int i, int offset) {
+		long alive = frame.getWord(y, i);
+		int columns = Math.min(TILE_SIZE, width - (i << 6));
+		for (int bit = 0; bit < columns; bit++) {
+			if (((alive >>> bit) & 1L) == 0) {
+				_pixels[offset + bit] = _background;
+			} else if (_uniform) {
+				_pixels[offset + bit] = _colors[0];
+			} else {
+				int neighbors = frame.countNeighbors(y, (i << 6) + bit);
+				_pixels[offset + bit] = _colors[
+						(neighbors < 0 || neighbors > 8) ? 8 : neighbors];
+			}
+		}
+	}
+
+	/**
+	 * Records the cells that were born or died since the frame rendered
+	 * last by comparing whole frames, remembers the new frame and flags
+	 * every row.
+	 */
+	private void findChanges(Frame frame) {
+		for (int y = 0; y < height; y++) {
+			int row = y * wordsPerRow;
+			for (int i = 0; i < wordsPerRow; i++) {
+				long word = frame.getWord(y, i);
+				long change = word ^ _rendered[row + i];
+				_changed[row + i] = change;
+				_rendered[row + i] = word;
+			}
+			flagRow(y);
+		}
+	}
+
+	/**
+	 * Records the cells that were born or died in the words a frame lists
+	 * as changed, and flags the rows next to them.
+	 */
+	private void readChanges(Frame frame) {
+		int count = frame.getChangedWordCount();
+		for (int k = 0; k < count; k++) {
+			int index = frame.getChangedWord(k);
+			int y = index / wordsPerRow;
+			long word = frame.getWord(y, index - y * wordsPerRow);
+			long change = word ^ _rendered[index];
+			if (change == 0) {
+				continue;
+			}
+			_changed[index] = change;
+			_rendered[index] = word;
+			flagRow((y == 0) ? height - 1 : y - 1);
+			flagRow(y);
+			flagRow((y == height - 1) ? 0 : y + 1);
+		}
+	}
+
+	private void flagRow(int y) {
+		if (!_isRowChanged[y]) {
+			_isRowChanged[y] = true;
+			_changedRows[_changedRowCount++] = y;
+		}
+	}
+
+	/**
+	 * Forgets the changes and flagged rows once their pixels were
+	 * rewritten.
+	 */
+	private void clearChanges() {
+		for (int r = 0; r < _changedRowCount; r++) {
+			int y = _changedRows[r];
+			_isRowChanged[y] = false;
+			for (int i = 0; i < wordsPerRow; i++) {
+				_changed[y * wordsPerRow + i] = 0;
+			}
+		}
+		_changedRowCount = 0;
+	}
+
+	/**
+	 * Computes the cells of a row whose pixel may be stale.  With a single
+	 * color only the changed cells are, otherwise all cells next to a change
+	 * are, including across the edges of the board.
+	 * 
+	 * @param y - the row.
+	 * @return true if the row has dirty cells.
+	 */
+	private boolean markDirty(int y) {
+		int row = y * wordsPerRow;
+		if (_uniform) {
+			long any = 0;
+			for (int i = 0; i < wordsPerRow; i++) {
+				_dirty[i] = _changed[row + i];
+				any |= _dirty[i];
+			}
+			return any != 0;
+		}
+		int above = ((y == 0) ? height - 1 : y - 1) * wordsPerRow;
+		int below = ((y == height - 1) ? 0 : y + 1) * wordsPerRow;
+		long any = 0;
+		for (int i = 0; i < wordsPerRow; i++) {
+			long change = _changed[above + i] | _changed[row + i]
+					| _changed[below + i];
+			_dirty[i] = change;
+			any |= change;
+		}
+		if (any == 0) {
+			return false;
+		}
+		// Spread the changed columns to their left and right neighbors.
+		boolean first = (_dirty[0] & 1L) != 0;
+		boolean last = (_dirty[(width - 1) >>> 6] & (1L << (width - 1))) != 0;
+		long carry = 0;
+		for (int i = 0; i < wordsPerRow; i++) {
+			long word = _dirty[i];
+			long next = (i + 1 < wordsPerRow) ? _dirty[i + 1] : 0;
+			_dirty[i] = word | (word << 1) | carry | (word >>> 1)
+					| (next << 63);
+			carry = word >>> 63;
+		}
+		if (first) {
+			_dirty[(width - 1) >>> 6] |= 1L << (width - 1);
+		}
+		if (last) {
+			_dirty[0] |= 1L;
+		}
+		_dirty[wordsPerRow - 1] &= lastWordMask;
+		return true;
+	}
+
+	/**
+	 * Frees the pixels of the tiles.
+	 */
+	public void recycle() {
+		for (int t = 0; t < _shown.size(); t++) {
+			_shown.get(t).bitmap.recycle();
+		}
+		for (int t = 0; t < _spare.size(); t++) {
+			_spare.get(t).recycle();
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.quesucede.gameoflife.engine.Frame;
+import com.quesucede.gameoflife.engine.PopulationMipmap;
+
+/**
+ * Renderer for boards zoomed out below one pixel per cell.  The cells in
+ * view are split into square blocks of about one pixel, each shaded by the
+ * share of its cells that are alive, and the shades are drawn with a single
+ * blit.  Blocks of frames carrying tile populations are the tiles of the
+ * level of detail closest to a pixel, whose counts are read as they are.
+ * Otherwise only a few rows of each block are counted.  Either way the work
+ * depends on the size of the view rather than the number of cells in it.
+ */
+public class DensityMap {
+
+	// Rows of a block counted to estimate its density.
+	private static final int SAMPLED_ROWS = 4;
+
+	// Number of shades between the background and the cell color.
+	private static final int SHADES = 16;
+
+	private final int[] _shades = new int[SHADES];
+
+	// One pixel per block, as large as the view.
+	private final int _capacityWidth;
+	private final int _capacityHeight;
+	private final int[] _pixels;
+	private final Bitmap _bitmap;
+
+	private final Rect _source = new Rect();
+	private final RectF _destination = new RectF();
+	private final Paint _paint = new Paint();
+
+	/**
+	 * Constructor for the DensityMap class.
+	 *
+	 * @param width - width of the view, in pixels.
+	 * @param height - height of the view, in pixels.
+	 */
+	public DensityMap(int width, int height) {
+		this._capacityWidth = Math.max(1, width);
+		this._capacityHeight = Math.max(1, height);
+		this._pixels = new int[_capacityWidth * _capacityHeight];
+		this._bitmap = Bitmap.createBitmap(_capacityWidth, _capacityHeight,
+				Bitmap.Config.ARGB_8888);
+		_paint.setFilterBitmap(false);
+	}
+
+	/**
+	 * Sets the colors of empty and full blocks, blending between them for
+	 * the blocks in between.
+	 *
+	 * @param cell - color of a block full of living cells.
+	 * @param background - color of an empty block.
+	 */
+	public void setColors(int cell, int background) {
+		for (int s = 0; s < SHADES; s++) {
+			// The lightest shade is a quarter of the way, so a lone cell
+			// still shows.
+			int weight = (s == 0) ? 0 : 64 + 192 * s / (SHADES - 1);
+			_shades[s] = Color.rgb(
+					blend(Color.red(background), Color.red(cell), weight),
+					blend(Color.green(background), Color.green(cell), weight),
+					blend(Color.blue(background), Color.blue(cell), weight));
+		}
+	}
+
+	private static int blend(int from, int to, int weight) {
+		return from + (to - from) * weight / 256;
+	}
+
+	/**
+	 * Shades the blocks in view and draws them.
+	 *
+	 * @param canvas - the canvas of the view.
+	 * @param frame - the generation to draw.
+	 * @param viewport - the part of the board in view.
+	 */
+	public void draw(Canvas canvas, Frame frame, Viewport viewport) {
+		int block = (int) Math.ceil(1 / viewport.getScale());
+		int firstRow = viewport.getFirstRow();
+		int firstColumn = viewport.getFirstColumn();
+		int lastRow = viewport.getLastRow();
+		int lastColumn = viewport.getLastColumn();
+		PopulationMipmap mipmap = frame.getMipmap();
+		if (mipmap != null && block >= PopulationMipmap.TILE_SIZE) {
+			drawTiles(canvas, mipmap, viewport, block);
+			return;
+		}
+		int blocksHigh = Math.min(_capacityHeight,
+				(lastRow - firstRow) / block + 1);
+		int blocksWide = Math.min(_capacityWidth,
+				(lastColumn - firstColumn) / block + 1);
+
+		int step = Math.max(1, block / SAMPLED_ROWS);
+		for (int by = 0; by < blocksHigh; by++) {
+			int top = firstRow + by * block;
+			int bottom = Math.min(top + block, frame.getHeight());
+			int row = by * _capacityWidth;
+			for (int bx = 0; bx < blocksWide; bx++) {
+				int left = firstColumn + bx * block;
+				int right = Math.min(left + block, frame.getWidth());
+				int alive = 0;
+				int counted = 0;
+				for (int y = top; y < bottom; y += step) {
+					alive += countRow(frame, y, left, right);
+					counted += right - left;
+				}
+				int shade = (alive == 0) ? 0
+						: 1 + (SHADES - 2) * alive / counted;
+				_pixels[row + bx] = _shades[shade];
+			}
+		}
+
+		blit(canvas, viewport, firstRow, firstColumn, blocksHigh, blocksWide,
+				block);
+	}
+
+	/**
+	 * Shades the tiles in view of the smallest level whose tiles are at
+	 * least a block wide.
+	 */
+	private void drawTiles(Canvas canvas, PopulationMipmap mipmap,
+			Viewport viewport, int block) {
+		int level = 0;
+		while (level < mipmap.getLevels() - 1
+				&& mipmap.getTileSize(level) < block) {
+			level++;
+		}
+		int size = mipmap.getTileSize(level);
+		int firstRow = viewport.getFirstRow() / size;
+		int firstColumn = viewport.getFirstColumn() / size;
+		int tilesHigh = Math.min(_capacityHeight,
+				viewport.getLastRow() / size - firstRow + 1);
+		int tilesWide = Math.min(_capacityWidth,
+				viewport.getLastColumn() / size - firstColumn + 1);
+
+		for (int ty = 0; ty < tilesHigh; ty++) {
+			int row = ty * _capacityWidth;
+			for (int tx = 0; tx < tilesWide; tx++) {
+				int alive = mipmap.getCount(level, firstRow + ty,
+						firstColumn + tx);
+				int shade = (alive == 0) ? 0 : 1 + (SHADES - 2) * alive
+						/ mipmap.getArea(level, firstRow + ty, firstColumn + tx);
+				_pixels[row + tx] = _shades[shade];
+			}
+		}
+		blit(canvas, viewport, firstRow * size, firstColumn * size, tilesHigh,
+				tilesWide, size);
+	}
+
+	/**
+	 * Draws the shaded blocks over the cells they stand for.
+	 */
+	private void blit(Canvas canvas, Viewport viewport, int firstRow,
+			int firstColumn, int blocksHigh, int blocksWide, int block) {
+		_bitmap.setPixels(_pixels, 0, _capacityWidth, 0, 0, blocksWide,
+				blocksHigh);
+		_source.set(0, 0, blocksWide, blocksHigh);
+		_destination.set(viewport.toViewX(firstColumn),
+				viewport.toViewY(firstRow),
+				viewport.toViewX(firstColumn + blocksWide * block),
+				viewport.toViewY(firstRow + blocksHigh * block));
+		canvas.drawBitmap(_bitmap, _source, _destination, _paint);
+	}
+
+	/**
+	 * Counts the living cells of a row from column left up to, but not
+	 * including, column right.
+	 */
+	private static int countRow(Frame frame, int y, int left, int right) {
+		int count = 0;
+		int first = left >>> 6;
+		int last = (right - 1) >>> 6;
+		for (int i = first; i <= last; i++) {
+			long word = frame.getWord(y, i);
+			if (i == first) {
+				word &= -1L << left;
+			}
+			if (i == last) {
+				word &= -1L >>> (63 - ((right - 1) & 63));
+			}
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Frees the pixels of the bitmap.
+	 */
+	public void recycle() {
+		_bitmap.recycle();
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.view.Choreographer;
+
+/**
+ * Calls back on the UI thread once per display frame while started.  On
+ * Jelly Bean and later the callbacks are driven by the Choreographer and
+ * line up with the vertical sync of the display; older versions fall back
+ * to a Handler posting at about the same rate.
+ */
+public class FramePacer implements Runnable {
+
+	// Delay between two callbacks without a Choreographer, about 60 per second.
+	private static final long FALLBACK_FRAME_MILLIS = 16;
+
+	private final Runnable _onFrame;
+
+	// Exactly one of these schedules the callbacks.
+	private final VsyncCallback _vsync;
+	private final Handler _handler;
+
+	private boolean _started;
+
+	/**
+	 * Constructor for the FramePacer class, which must be called on the UI
+	 * thread.
+	 * 
+	 * @param onFrame - run on the UI thread at every display frame.
+	 */
+	public FramePacer(Runnable onFrame) {
+		this._onFrame = onFrame;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			this._vsync = new VsyncCallback(this);
+			this._handler = null;
+		} else {
+			this._vsync = null;
+			this._handler = new Handler();
+		}
+	}
+
+	/**
+	 * Starts calling back at every display frame.
+	 */
+	public void start() {
+		if (!_started) {
+			_started = true;
+			schedule();
+		}
+	}
+
+	/**
+	 * Stops the callbacks.
+	 */
+	public void stop() {
+		_started = false;
+		if (_vsync != null) {
+			_vsync.cancel();
+		} else {
+			_handler.removeCallbacks(this);
+		}
+	}
+
+	/**
+	 * Runs the callback and schedules the next one.
+	 */
+	public void run() {
+		if (!_started) {
+			return;
+		}
+		// Scheduled first, so the time spent in the callback does not delay
+		// the next one.
+		schedule();
+		_onFrame.run();
+	}
+
+	private void schedule() {
+		if (_vsync != null) {
+			_vsync.post();
+		} else {
+			_handler.postDelayed(this, FALLBACK_FRAME_MILLIS);
+		}
+	}
+
+	/**
+	 * Choreographer callback, kept in its own class so that older versions
+	 * never load it.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private static final class VsyncCallback
+			implements Choreographer.FrameCallback {
+
+		private final Runnable _tick;
+
+		VsyncCallback(Runnable tick) {
+			this._tick = tick;
+		}
+
+		public void doFrame(long frameTimeNanos) {
+			_tick.run();
+		}
+
+		void post() {
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		void cancel() {
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+	}
+}
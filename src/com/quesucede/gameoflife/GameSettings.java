@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.quesucede.gameoflife.engine.Rule;
+import com.quesucede.gameoflife.engine.Topology;
+
+/**
+ * Immutable snapshot of the user settings that drive the simulation.  It is
+ * read from the SharedPreferences once and replaced only when a preference
+ * changes, so the animation loop never parses preferences itself.
+ */
+public final class GameSettings {
+
+	private final Rule rule;
+	private final Topology topology;
+	private final int animationSpeed;
+	private final int colorCode;
+	private final String engine;
+	private final int boardSize;
+	private final String renderer;
+	private final boolean showHud;
+
+	/**
+	 * Constructor for the GameSettings class.
+	 * 
+	 * @param rule - the rule the engine steps with.
+	 * @param topology - behavior of the edges of the board.
+	 * @param animationSpeed - integer representation of the speed.
+	 * @param colorCode - integer representation of the color scheme.
+	 * @param engine - name of the simulation engine for new games.
+	 * @param boardSize - number of screens the board spans in each
+	 *          direction, for new games.
+	 * @param renderer - how the view draws the cells.
+	 * @param showHud - whether the performance overlay is shown.
+	 */
+	public GameSettings(Rule rule, Topology topology, int animationSpeed,
+			int colorCode, String engine, int boardSize, String renderer,
+			boolean showHud) {
+		this.rule = rule;
+		this.topology = topology;
+		this.animationSpeed = animationSpeed;
+		this.colorCode = colorCode;
+		this.engine = engine;
+		this.boardSize = boardSize;
+		this.renderer = renderer;
+		this.showHud = showHud;
+	}
+
+	/**
+	 * Reads and parses the current cell behavior variables and display
+	 * preferences.
+	 * 
+	 * @param context - Context of the Life activity.
+	 * @return a snapshot of the current settings.
+	 */
+	public static GameSettings load(Context context) {
+		Rule rule = null;
+		String rulestring = VariablesActivity.getRuleVariable(context);
+		if (rulestring.length() > 0) {
+			try {
+				rule = Rule.parse(rulestring);
+			} catch (IllegalArgumentException e) {
+				Log.e("GameSettings", e.getMessage());
+			}
+		}
+		if (rule == null) {
+			rule = rangeRule(context);
+		}
+
+		int animationSpeed = Integer.parseInt(PreferencesActivity
+				.getAnimationSpeed(context));
+		int colorCode = Integer.parseInt(PreferencesActivity
+				.getColorCode(context));
+		Topology topology = Topology.fromName(VariablesActivity
+				.getEdgeVariable(context));
+		int boardSize = Integer.parseInt(PreferencesActivity
+				.getBoardSize(context));
+		return new GameSettings(rule, topology, animationSpeed, colorCode,
+				PreferencesActivity.getEngine(context), boardSize,
+				PreferencesActivity.getRenderer(context),
+				PreferencesActivity.getShowHud(context));
+	}
+
+	/**
+	 * Builds the rule from the minimum, maximum and spawn variables.
+	 */
+	private static Rule rangeRule(Context context) {
+		int minimum = Integer.parseInt(VariablesActivity
+				.getMinimumVariable(context));
+		int maximum = Integer.parseInt(VariablesActivity
+				.getMaximumVariable(context));
+		int spawn = Integer.parseInt(VariablesActivity
+				.getSpawnVariable(context));
+		return Rule.fromRange(minimum, maximum, spawn);
+	}
+
+	/**
+	 * @return the rule the engine steps with.
+	 */
+	public Rule getRule() {
+		return rule;
+	}
+
+	/**
+	 * @return behavior of the edges of the board.
+	 */
+	public Topology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * @return integer representation of the animation speed.
+	 */
+	public int getAnimationSpeed() {
+		return animationSpeed;
+	}
+
+	/**
+	 * @return integer representation of the color scheme.
+	 */
+	public int getColorCode() {
+		return colorCode;
+	}
+
+	/**
+	 * @return name of the simulation engine for new games.
+	 */
+	public String getEngine() {
+		return engine;
+	}
+
+	/**
+	 * @return the number of screens the board spans in each direction.
+	 */
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	/**
+	 * @return how the view draws the cells, GridView.RENDER_POINTS or
+	 *          GridView.RENDER_BITMAP.
+	 */
+	public String getRenderer() {
+		return renderer;
+	}
+
+	/**
+	 * @return true if the performance overlay is shown.
+	 */
+	public boolean isShowHud() {
+		return showHud;
+	}
+}
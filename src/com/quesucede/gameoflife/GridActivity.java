@@ -24,6 +24,10 @@
  */
 package com.quesucede.gameoflife;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
 import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
@@ -32,6 +36,7 @@ import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.MotionEvent;
+import android.widget.Toast;
 
 /**
  * Class for the Grid Activity, or the New Game button.  It holds the
@@ -40,10 +45,22 @@ import android.view.MotionEvent;
  */
 public class GridActivity extends Activity {
 
+    // File the board is saved to when the activity may be destroyed, and
+    // the saved state flag telling that it holds the board to restore.
+    private static final String SNAPSHOT_FILE = "board.life";
+    private static final String STATE_SNAPSHOT = "snapshot";
+
+    // File the board is exported to, and the request picking a pattern to
+    // import.
+    private static final String PATTERN_FILE = "board.rle";
+    private static final int REQUEST_IMPORT = 1;
+
     private GridView _gridView;
 
     /**
-     * Called when the activity is first created. 
+     * Called when the activity is first created, or recreated after a
+     * configuration change or the process being killed, in which case the
+     * saved board is restored.
      */
     @Override
     public void onCreate(Bundle savedInstanceState) {
@@ -51,7 +68,37 @@ public class GridActivity extends Activity {
         setContentView(R.layout.grid);
         
         _gridView = (GridView)findViewById(R.id.grid_view); 
-        _gridView.setMode(GridView.RUNNING);
+        if (savedInstanceState != null
+                && savedInstanceState.getBoolean(STATE_SNAPSHOT)) {
+            try {
+                _gridView.getLife().restore(getSnapshotFile());
+            } catch (IOException e) {
+                Log.e("GridActivity", "Could not restore the board: "
+                        + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Saves the board before the activity may be destroyed.
+     */
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        try {
+            _gridView.getLife().save(getSnapshotFile());
+            outState.putBoolean(STATE_SNAPSHOT, true);
+        } catch (IOException e) {
+            Log.e("GridActivity", "Could not save the board: "
+                    + e.getMessage());
+        }
+    }
+    
+    /**
+     * @return the file the board is saved to.
+     */
+    private File getSnapshotFile() {
+        return new File(getFilesDir(), SNAPSHOT_FILE);
     }
     
     /**
@@ -67,7 +114,21 @@ public class GridActivity extends Activity {
     }
 
     /**
-     * Starts the appropriate PreferencesActivity from the menu.
+     * Only offers stepping back on boards whose generations are recorded.
+     */
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        super.onPrepareOptionsMenu(menu);
+        Life life = _gridView.getLife();
+        boolean canStepBack = life != null && life.canStepBack();
+        menu.findItem(R.id.step_back).setEnabled(canStepBack);
+        menu.findItem(R.id.resume).setEnabled(canStepBack);
+        return true;
+    }
+
+    /**
+     * Starts the appropriate PreferencesActivity, steps back or resumes,
+     * picks a pattern to import or exports the board from the menu.
      */
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
@@ -75,18 +136,93 @@ public class GridActivity extends Activity {
             case R.id.settings:
                 startActivity(new Intent(this, PreferencesActivity.class));
                 return true;
+            case R.id.step_back:
+                _gridView.setMode(GridView.PAUSE);
+                _gridView.getLife().stepBack();
+                return true;
+            case R.id.resume:
+                _gridView.setMode(GridView.RUNNING);
+                return true;
+            case R.id.import_pattern:
+                Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+                intent.setType("*/*");
+                intent.addCategory(Intent.CATEGORY_OPENABLE);
+                startActivityForResult(Intent.createChooser(intent,
+                        getString(R.string.import_label)), REQUEST_IMPORT);
+                return true;
+            case R.id.export_pattern:
+                exportPattern();
+                return true;
         }
         return false;
     }
+
+    /**
+     * Imports the pattern picked from the menu.
+     */
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode,
+            Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode != REQUEST_IMPORT || resultCode != RESULT_OK
+                || data == null || data.getData() == null) {
+            return;
+        }
+        try {
+            InputStream in = getContentResolver().openInputStream(
+                    data.getData());
+            _gridView.getLife().importPattern(in);
+        } catch (IOException e) {
+            Log.e("GridActivity", "Could not open the pattern: "
+                    + e.getMessage());
+            Toast.makeText(this, R.string.import_failed, Toast.LENGTH_SHORT)
+                    .show();
+        }
+    }
+
+    /**
+     * Writes the board as an RLE pattern to the external files directory,
+     * or to internal storage when there is none.
+     */
+    private void exportPattern() {
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            directory = getFilesDir();
+        }
+        File file = new File(directory, PATTERN_FILE);
+        try {
+            _gridView.getLife().exportPattern(file);
+            Toast.makeText(this, getString(R.string.export_done,
+                    file.getPath()), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e("GridActivity", "Could not export the board: "
+                    + e.getMessage());
+            Toast.makeText(this, R.string.export_failed, Toast.LENGTH_SHORT)
+                    .show();
+        }
+    }
     
     /**
-     * Reads touch(or mouse input) and spawns the appropriate cells.
+     * Reads touch(or mouse input) and draws or erases the cells under the
+     * finger, or zooms and pans the board when touched with two fingers.
      */
     public boolean onTouchEvent(MotionEvent event){
-		_gridView.flipCellLife((int) event.getX(),(int) event.getY());
+    	if (_gridView.panBoard(event)) {
+    		return true;
+    	}
+		_gridView.drawCells(event);
     	return true;
     }
     
+    /**
+     *  Resumes the simulation whenever the Grid Activity comes to the front.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        _gridView.setMode(GridView.RUNNING);
+    }
+    
     /**
      *  Pauses the view of the Grid Activity 
      */
@@ -95,4 +231,13 @@ public class GridActivity extends Activity {
         super.onPause();
         _gridView.setMode(GridView.PAUSE);
     }
+    
+    /**
+     *  Releases the simulation when the Grid Activity goes away.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        _gridView.getLife().release();
+    }
 }
\ No newline at end of file
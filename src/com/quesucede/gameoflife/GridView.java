@@ -27,23 +27,39 @@ package com.quesucede.gameoflife;
 
 import android.content.Context;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Point;
-import android.os.Handler;
-import android.os.Message;
+import android.os.Debug;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.Display;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
 import android.view.WindowManager;
 
+import com.quesucede.gameoflife.engine.EditBatch;
+import com.quesucede.gameoflife.engine.Frame;
+import com.quesucede.gameoflife.engine.SampleRing;
+import com.quesucede.gameoflife.engine.Simulator;
+
 /**
  * Class for the Grid View, provides the graphics for the Grid Activity and
- * paints the cells where and when appropriate onto the background.
+ * paints the cells where and when appropriate onto the background.  The
+ * generations are computed on the simulation thread, and while running the
+ * view redraws itself from the latest frame at the next display frame after
+ * a new one is published, however many generations were computed since.
+ * 
+ * The board may be larger than the view, which shows part of it through a
+ * Viewport that is zoomed by pinching and moved by dragging two fingers.
+ * Only the cells in view are drawn, and once zoomed out below one pixel per
+ * cell the board is drawn as a DensityMap, from the tile populations of
+ * the frames when they carry them.
  * 
  */
-public class GridView extends View {
+public class GridView extends View implements Simulator.FrameListener {
     
 	// Whether or not the activity is running.
     public static final int PAUSE = 0;
@@ -55,6 +71,7 @@ public class GridView extends View {
     private static final long speed_normal = 250;
     private static final long speed_fast = 150;
     private static final long speed_very_fast = 25;
+    private static final long speed_unlimited = 0;
     
     // Colorization theme names.
     public static final String theme_off = "Off";
@@ -62,6 +79,21 @@ public class GridView extends View {
     public static final String theme_spectrum = "Spectrum";
     public static final String theme_error = "Error";
     
+    // Renderer names.
+    public static final String RENDER_POINTS = "points";
+    public static final String RENDER_BITMAP = "bitmap";
+    
+    // Fields of the frame samples: the time spent drawing, the time since
+    // the previous draw started and the objects allocated by the draw.
+    public static final int SAMPLE_DRAW_NANOS = 0;
+    public static final int SAMPLE_FRAME_INTERVAL_NANOS = 1;
+    public static final int SAMPLE_ALLOCATIONS = 2;
+    private static final int SAMPLE_FIELDS = 3;
+    
+    // Number of frame samples kept, and the number the overlay sums up.
+    private static final int SAMPLE_CAPACITY = 256;
+    private static final int HUD_SAMPLES = 60;
+    
     // Object of the Life class.
     private Life _life;
     
@@ -75,34 +107,68 @@ public class GridView extends View {
     // The current animation speed.
     private long _moveDelay = speed_normal; 
     
-    //Refresh Handler
-    private RefreshHandler _redrawHandler = new RefreshHandler();
-
-    /**
-     * Class that handles the redrawing of the board.
-     * 
-     * @author Brett Kromkamp
-     */
-    class RefreshHandler extends Handler {
-
-    	/** 
-    	 * Calls the update() and invalidate() functions of Gridview.
-    	 */
-        @Override
-        public void handleMessage(Message message) {
-            GridView.this.update();
-            GridView.this.invalidate();
-        }
-
-        /** 
-         * Removes the current message in the queue and sends another
-         * message after a delay.
-         */
-        public void sleep(long delayMillis) {
-            this.removeMessages(0);
-            sendMessageDelayed(obtainMessage(0), delayMillis);
-        }
-    };
+    // The settings snapshot the speed and color were last taken from.
+    private GameSettings _appliedSettings;
+    
+    // The frame drawn last, which stays unchanged until the next is taken.
+    private Frame _frame;
+    
+    // Redraws the view at most once per display frame while running.
+    private FramePacer _pacer;
+    private volatile boolean _pacing;
+    
+    // Whether a frame was published since the view was last invalidated.
+    private volatile boolean _frameReady;
+    
+    // Timing of every draw, and when the last one started.
+    private final SampleRing _frameSamples = new SampleRing(SAMPLE_CAPACITY,
+            SAMPLE_FIELDS);
+    private long _lastDrawStart;
+    
+    // Performance overlay, and the buffers it is built in every frame.
+    private boolean _showHud;
+    private final Paint _hudPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final long[] _hudSamples = new long[HUD_SAMPLES
+            * Math.max(Simulator.SAMPLE_FIELDS, SAMPLE_FIELDS)];
+    private final StringBuilder _hudText = new StringBuilder(64);
+    private final char[] _hudChars = new char[64];
+    
+    // The part of the board in view, and the pinch zooming it.
+    private Viewport _viewport;
+    private ScaleGestureDetector _scaleDetector;
+    
+    // Two finger drag, the point between the fingers where the view last
+    // moved, and the cells an unbounded board has yet to move by.
+    private boolean _panning;
+    private float _panY;
+    private float _panX;
+    private float _planeY;
+    private float _planeX;
+    
+    // Finger stroke being drawn, the state it gives cells and the last cell
+    // it reached.
+    private boolean _stroking;
+    private boolean _strokeAlive;
+    private int _strokeRow;
+    private int _strokeColumn;
+    
+    // Paints reused by every frame, one per neighbor count of a cell.
+    private final Paint _background = new Paint();
+    private final Paint[] _palette = new Paint[9];
+    
+    // Cell centers waiting to be drawn, as x,y pairs per neighbor count.
+    private final float[][] _points = new float[9][];
+    private final int[] _pointCounts = new int[9];
+    
+    // Renderer writing cell pixels to a bitmap, when selected.
+    private BitmapRenderer _bitmapRenderer;
+    private final int[] _colors = new int[9];
+    
+    // Renderer of boards zoomed out below one pixel per cell.
+    private DensityMap _densityMap;
+    
+    // Cell size the palette was built for.
+    private float _paletteScale;
 
     /**
      * Constructor for the GridView class, initializes the view and creates a 
@@ -123,6 +189,9 @@ public class GridView extends View {
         // Creates the Life object, passing in the context, height, width, and
         // DPI of the device.
         _life = new Life(context,getH(),getW(),_displayMetrics.densityDpi);
+        _life.getSimulator().setFrameListener(this);
+        _viewport = new Viewport(_life.getHeight(), _life.getWidth(),
+                _life.getCellSize());
 
         initGridView();
     }
@@ -146,68 +215,82 @@ public class GridView extends View {
     }
     
     /**
-     * Either calls update if the mode bit is 1 or does nothing if the mode
-     * bit is 0.
+     * Either resumes the simulation if the mode bit is 1 or pauses it if the
+     * mode bit is 0.
      * 
      * @param mode - either PAUSE(0) or RUNNING(1)
      */
     public void setMode(int mode) {
         if (mode == RUNNING) {
             update();
+            _life.getSimulator().setRunning(true);
+            _pacing = true;
+            _pacer.start();
             return;
         }
         if (mode == PAUSE) {
-            // TODO: implement.
+            _life.getSimulator().setRunning(false);
+            _pacing = false;
+            _pacer.stop();
         }
     }
     
     /**
-     * Sets the parameter cell at location (y,x) in the grid to the proper 
-     * color, based on the its number of neighbors and the theme selected.
-     * 
-     * @param cell - Paint object to set the color of.
-     * @param y - Y-value of location in the grid.
-     * @param x - X-value of location in the grid.
+     * Called on the simulation thread when a new generation is ready.  While
+     * running the redraw waits for the next display frame, otherwise, as
+     * after an edit of a paused game, it is scheduled right away.
      */
-    private void setCellColor(Paint cell, int y, int x){
-        int neighbors = _life.calculateNeighbors(y, x);
-        if (neighbors > 8 || neighbors < 0){
-            /*  Default cases in the themes will still allow the cell to be 
-             * shown, despite it having an invalid number of neighbors.*/
-            Log.e("setColor","Cell at (" + y + "," + x+ ") has " + neighbors +
-                    " neighbors.");
+    public void onFrameAvailable(Frame frame) {
+        _frameReady = true;
+        if (!_pacing) {
+            postInvalidate();
         }
+    }
+    
+    /**
+     * Called on the UI thread at every display frame while running.  A game
+     * running as fast as possible only publishes the frames asked for here.
+     */
+    private void onDisplayFrame() {
+        if (_moveDelay == speed_unlimited) {
+            _life.getSimulator().requestFrame();
+        }
+        if (_frameReady) {
+            _frameReady = false;
+            invalidate();
+        }
+    }
+    
+    /**
+     * Looks up the color a living cell with the given number of neighbors
+     * is painted in, based on the theme selected.
+     * 
+     * @param neighbors - number of living neighbors, from 0 to 8.
+     * @return the color of the cell.
+     */
+    private int getCellColor(int neighbors){
         if (color.equals(theme_spectrum)){
             /*  The Spectrum theme is a rainbow gradient of 8 values 
              *  from blue to red. */
             switch(neighbors){
             case 0:
-                cell.setColor(getResources().getColor(R.color.cc_spectrum0));
-                break;
+                return getResources().getColor(R.color.cc_spectrum0);
             case 1: 
-                cell.setColor(getResources().getColor(R.color.cc_spectrum1));
-                break;
+                return getResources().getColor(R.color.cc_spectrum1);
             case 2:
-                cell.setColor(getResources().getColor(R.color.cc_spectrum2));
-                break;
+                return getResources().getColor(R.color.cc_spectrum2);
             case 3:
-                cell.setColor(getResources().getColor(R.color.cc_spectrum3));
-                break;
+                return getResources().getColor(R.color.cc_spectrum3);
             case 4:
-                cell.setColor(getResources().getColor(R.color.cc_spectrum4));
-                break;
+                return getResources().getColor(R.color.cc_spectrum4);
             case 5:
-                cell.setColor(getResources().getColor(R.color.cc_spectrum5));
-                break;
+                return getResources().getColor(R.color.cc_spectrum5);
             case 6:
-                cell.setColor(getResources().getColor(R.color.cc_spectrum6));
-                break;
+                return getResources().getColor(R.color.cc_spectrum6);
             case 7:
-                cell.setColor(getResources().getColor(R.color.cc_spectrum7));
-                break;
+                return getResources().getColor(R.color.cc_spectrum7);
             default:
-                cell.setColor(getResources().getColor(R.color.cc_spectrum8));
-                break;
+                return getResources().getColor(R.color.cc_spectrum8);
             }
         }
         else if (color.equals(theme_android)){
@@ -215,69 +298,319 @@ public class GridView extends View {
              *  blue to android green. */
             switch(neighbors){
             case 0: case 1:
-                cell.setColor(getResources().getColor(R.color.cc_android0));
-                break;
+                return getResources().getColor(R.color.cc_android0);
             case 2: case 3: 
-                cell.setColor(getResources().getColor(R.color.cc_android1));
-                break;
+                return getResources().getColor(R.color.cc_android1);
             default: 
                 // A case of 4-8 neighbors gets the dominant theme color.
-                cell.setColor(getResources().getColor(R.color.cc_android2));
-                break;
+                return getResources().getColor(R.color.cc_android2);
             }
         }
         else if (color.equals(theme_off)){
             // When the theme is 'off', paint the cell black.
-            cell.setColor(getResources().getColor(R.color.cc_off));
+            return getResources().getColor(R.color.cc_off);
         }
-        else {
-            // Any other case would be an error.
-            cell.setColor(getResources().getColor(R.color.cc_error));
+        // Any other case would be an error.
+        return getResources().getColor(R.color.cc_error);
+    }
+
+    /**
+     * Rebuilds the Paint of every neighbor count for the current theme and
+     * cell size.  Each cell is drawn as a square point one pixel smaller
+     * than the cell, leaving the grid lines between cells, unless cells are
+     * too small to leave room for them.
+     */
+    private void buildPalette() {
+        float scale = _viewport.getScale();
+        float width = (scale >= 2) ? scale - 1 : Math.max(1, scale);
+        for (int n = 0; n < _palette.length; n++) {
+            Paint paint = _palette[n];
+            if (paint == null) {
+                paint = new Paint();
+                paint.setStyle(Paint.Style.STROKE);
+                paint.setStrokeCap(Paint.Cap.SQUARE);
+                _palette[n] = paint;
+            }
+            _colors[n] = getCellColor(n);
+            paint.setColor(_colors[n]);
+            paint.setStrokeWidth(width);
         }
+        _paletteScale = scale;
+        if (_bitmapRenderer != null) {
+            _bitmapRenderer.setColors(_colors, _background.getColor());
+        }
+        if (_densityMap != null) {
+            _densityMap.setColors(_colors[3], _background.getColor());
+        }
+    }
 
-    }    
+    /**
+     * Adds the center of the cell at (y,x) to the points drawn with the
+     * Paint of its neighbor count.  The point buffers only grow, so once
+     * they fit the densest frame seen drawing allocates nothing.
+     * 
+     * @param neighbors - number of living neighbors of the cell.
+     * @param y - Y-value of location in the grid.
+     * @param x - X-value of location in the grid.
+     */
+    private void addPoint(int neighbors, int y, int x) {
+        float[] points = _points[neighbors];
+        int count = _pointCounts[neighbors];
+        if (count + 2 > points.length) {
+            float[] larger = new float[points.length * 2];
+            System.arraycopy(points, 0, larger, 0, count);
+            _points[neighbors] = points = larger;
+        }
+        float center = _palette[neighbors].getStrokeWidth() / 2f;
+        points[count] = _viewport.toViewX(x) + center;
+        points[count + 1] = _viewport.toViewY(y) + center;
+        _pointCounts[neighbors] = count + 2;
+    }
 
     /**
-     * Creates a Paint background object and draws on Paint cell objects
-     * depending on their value in the grid.
+     * Draws the latest frame and records how long it took, then the
+     * performance overlay if it is enabled.
      */
     @Override
     protected void onDraw(Canvas canvas) {
-        Paint background = new Paint();
-        background.setColor(getResources().getColor(R.color.background));
+        update();
+        long start = System.nanoTime();
+        int allocations = _showHud ? Debug.getThreadAllocCount() : 0;
+
+        drawBoard(canvas);
+
+        _frameSamples.set(SAMPLE_DRAW_NANOS, System.nanoTime() - start);
+        _frameSamples.set(SAMPLE_FRAME_INTERVAL_NANOS,
+                (_lastDrawStart == 0) ? 0 : start - _lastDrawStart);
+        _frameSamples.set(SAMPLE_ALLOCATIONS, _showHud
+                ? Debug.getThreadAllocCount() - allocations : -1);
+        _frameSamples.commit();
+        _lastDrawStart = start;
+
+        if (_showHud) {
+            drawHud(canvas);
+        }
+    }
+
+    /**
+     * Draws the background and then the living cells in view of the latest
+     * frame, either through the density map when zoomed out, through the
+     * bitmap renderer or grouped by neighbor count into one batch of points
+     * per color.
+     */
+    private void drawBoard(Canvas canvas) {
+        _frame = _life.getSimulator().getFrames().acquireLatest();
 
-        Paint cell = new Paint();
-        
         // draw background
-        canvas.drawRect(0, 0, getWidth(), getHeight(), background);
+        canvas.drawRect(0, 0, getWidth(), getHeight(), _background);
 
-        // draw cells
-        for (int h = 0; h < _life.getHeight(); h++) {
-            for (int w = 0; w < _life.getWidth(); w++) {
-                if (_life.getGrid()[h][w] != 0) {
-                	// Set the color of the cell depending on the algorithm and
-                	// settings.
-                    setCellColor(cell, h, w);
-                    canvas.drawRect(
-                        w * _life.getCellSize(), 
-                        h * _life.getCellSize(), 
-                        (w * _life.getCellSize()) + (_life.getCellSize() -1),
-                        (h * _life.getCellSize()) + (_life.getCellSize() -1),
-                        cell);
+        if (_frame == null) {
+            return;
+        }
+
+        if (_viewport.getScale() < 1 && _densityMap != null) {
+            _densityMap.draw(canvas, _frame, _viewport);
+            return;
+        }
+        if (_bitmapRenderer != null) {
+            _bitmapRenderer.draw(canvas, _frame, _viewport);
+            return;
+        }
+        if (_paletteScale != _viewport.getScale()) {
+            buildPalette();
+        }
+
+        // sort the living cells in view by color, walking the set bits of
+        // each row
+        for (int n = 0; n < _pointCounts.length; n++) {
+            _pointCounts[n] = 0;
+        }
+        int firstColumn = _viewport.getFirstColumn();
+        int lastColumn = _viewport.getLastColumn();
+        int firstWord = firstColumn >>> 6;
+        int lastWord = lastColumn >>> 6;
+        for (int h = _viewport.getFirstRow(); h <= _viewport.getLastRow();
+                h++) {
+            for (int i = firstWord; i <= lastWord; i++) {
+                long word = _frame.getWord(h, i);
+                if (i == firstWord) {
+                    word &= -1L << firstColumn;
+                }
+                if (i == lastWord) {
+                    word &= -1L >>> (63 - (lastColumn & 63));
                 }
+                while (word != 0) {
+                    int w = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    int neighbors = _frame.countNeighbors(h, w);
+                    if (neighbors > 8 || neighbors < 0){
+                        /*  Invalid counts are still shown, in the color of
+                         *  the default case of the themes. */
+                        Log.e("onDraw","Cell at (" + h + "," + w + ") has " +
+                                neighbors + " neighbors.");
+                        neighbors = 8;
+                    }
+                    addPoint(neighbors, h, w);
+                }
+            }
+        }
+
+        // draw cells
+        for (int n = 0; n < _palette.length; n++) {
+            if (_pointCounts[n] > 0) {
+                canvas.drawPoints(_points[n], 0, _pointCounts[n], _palette[n]);
             }
         }
     }
     
     /**
-     * Sets the animation speed and color of the next generation and calls for
-     * the Life object to generate the next generation.
+     * Draws the performance overlay in the top left corner: the latest
+     * generation, then averages over the latest samples of the step and
+     * draw times, the frame interval and its jitter, and the allocations.
+     */
+    private void drawHud(Canvas canvas) {
+        SampleRing steps = _life.getSimulator().getSamples();
+        int count = steps.read(_hudSamples, HUD_SAMPLES);
+        float line = _hudPaint.getTextSize() * 1.2f;
+        float y = line;
+
+        _hudText.setLength(0);
+        if (count > 0) {
+            int last = (count - 1) * steps.getFields();
+            _hudText.append("gen ").append(
+                    _hudSamples[last + Simulator.SAMPLE_GENERATION]);
+            _hudText.append("  pop ").append(
+                    _hudSamples[last + Simulator.SAMPLE_POPULATION]);
+            _hudText.append("  changed ").append(
+                    _hudSamples[last + Simulator.SAMPLE_CHANGED_CELLS]);
+        }
+        if (_frame != null && _frame.getPeriod() > 0) {
+            _hudText.append("  cycle ").append(_frame.getPeriod());
+        }
+        y = drawHudLine(canvas, y, line);
+
+        _hudText.append("step ");
+        appendMillis(steps.mean(_hudSamples, count,
+                Simulator.SAMPLE_STEP_NANOS));
+        _hudText.append(" max ");
+        appendMillis(steps.max(_hudSamples, count,
+                Simulator.SAMPLE_STEP_NANOS));
+        _hudText.append("  alloc ");
+        _hudText.append(Math.round(steps.mean(_hudSamples, count,
+                Simulator.SAMPLE_ALLOCATIONS)));
+        y = drawHudLine(canvas, y, line);
+
+        count = _frameSamples.read(_hudSamples, HUD_SAMPLES);
+        _hudText.append("draw ");
+        appendMillis(_frameSamples.mean(_hudSamples, count,
+                SAMPLE_DRAW_NANOS));
+        _hudText.append(" max ");
+        appendMillis(_frameSamples.max(_hudSamples, count,
+                SAMPLE_DRAW_NANOS));
+        _hudText.append("  alloc ");
+        _hudText.append(Math.round(_frameSamples.mean(_hudSamples, count,
+                SAMPLE_ALLOCATIONS)));
+        y = drawHudLine(canvas, y, line);
+
+        _hudText.append("frame ");
+        appendMillis(_frameSamples.mean(_hudSamples, count,
+                SAMPLE_FRAME_INTERVAL_NANOS));
+        _hudText.append(" jitter ");
+        appendMillis(_frameSamples.deviation(_hudSamples, count,
+                SAMPLE_FRAME_INTERVAL_NANOS));
+        drawHudLine(canvas, y, line);
+    }
+
+    /**
+     * Draws the overlay text built so far as one line and empties it.
+     * 
+     * @return the position of the next line.
+     */
+    private float drawHudLine(Canvas canvas, float y, float line) {
+        int length = Math.min(_hudText.length(), _hudChars.length);
+        _hudText.getChars(0, length, _hudChars, 0);
+        canvas.drawText(_hudChars, 0, length, line / 2, y, _hudPaint);
+        _hudText.setLength(0);
+        return y + line;
+    }
+
+    /**
+     * Appends a duration to the overlay text in milliseconds, with one
+     * decimal.
+     */
+    private void appendMillis(double nanos) {
+        long tenths = Math.round(nanos / 100000);
+        _hudText.append(tenths / 10).append('.').append(tenths % 10)
+                .append(" ms");
+    }
+
+    /**
+     * @return the samples of the draws of the view, with the fields given
+     *          by the SAMPLE constants.
+     */
+    public SampleRing getFrameSamples() {
+        return _frameSamples;
+    }
+    
+    /**
+     * Shows or hides the performance overlay, along with the collection of
+     * the step samples and allocation counts it shows.
+     * 
+     * @param showHud - true to show the overlay.
+     */
+    private void setShowHud(boolean showHud) {
+        if (showHud == _showHud) {
+            return;
+        }
+        _showHud = showHud;
+        Simulator simulator = _life.getSimulator();
+        if (showHud) {
+            Debug.startAllocCounting();
+            simulator.setAllocationCounter(
+                    new Simulator.AllocationCounter() {
+                        public long getAllocations() {
+                            return Debug.getThreadAllocCount();
+                        }
+                    });
+        } else {
+            Debug.stopAllocCounting();
+            simulator.setAllocationCounter(null);
+        }
+        simulator.setMetricsEnabled(showHud);
+    }
+    
+    /**
+     * Sets the animation speed of the simulation and the color of the cells
+     * if the settings changed.
      */
     private void update() {
-        setAnimationSpeed(_life.getAnimationValue());
-        setColor(_life.getColorValue());
-        _life.generateNextGeneration();
-        _redrawHandler.sleep(_moveDelay);
+        GameSettings settings = _life.getSettings();
+        if (settings != _appliedSettings) {
+            setAnimationSpeed(settings.getAnimationSpeed());
+            setColor(settings.getColorCode());
+            setRenderer(settings.getRenderer());
+            setShowHud(settings.isShowHud());
+            buildPalette();
+            _life.getSimulator().setPeriodMillis(_moveDelay);
+            _appliedSettings = settings;
+        }
+    }
+    
+    /**
+     * Switches between drawing the cells one by one and through a bitmap.
+     * 
+     * @param renderer - RENDER_POINTS or RENDER_BITMAP.
+     */
+    private void setRenderer(String renderer){
+        if (RENDER_BITMAP.equals(renderer)) {
+            if (_bitmapRenderer == null) {
+                _bitmapRenderer = new BitmapRenderer(_life.getHeight(),
+                        _life.getWidth());
+            }
+        } else if (_bitmapRenderer != null) {
+            _bitmapRenderer.recycle();
+            _bitmapRenderer = null;
+        }
     }
     
     /**
@@ -326,6 +659,9 @@ public class GridView extends View {
         case 1:
             _moveDelay = speed_very_fast;
             break;
+        case 0:
+            _moveDelay = speed_unlimited;
+            break;
         default:
             Log.e("update", "Speed varibale " +  speedVar + 
                     " is not a vaild speed value.");
@@ -338,6 +674,54 @@ public class GridView extends View {
      */
     private void initGridView() {
         setFocusable(true);
+        _pacer = new FramePacer(new Runnable() {
+            public void run() {
+                onDisplayFrame();
+            }
+        });
+        _background.setColor(getResources().getColor(R.color.background));
+        _hudPaint.setColor(Color.WHITE);
+        _hudPaint.setTextSize(14 * _displayMetrics.density);
+        for (int n = 0; n < _points.length; n++) {
+            _points[n] = new float[64];
+        }
+        _scaleDetector = new ScaleGestureDetector(getContext(),
+                new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                    @Override
+                    public boolean onScale(ScaleGestureDetector detector) {
+                        _viewport.zoom(detector.getScaleFactor(),
+                                detector.getFocusX(),
+                                toViewY(detector.getFocusY()));
+                        invalidate();
+                        return true;
+                    }
+                });
+    }
+    
+    /**
+     * Fits the viewport to the new size of the view, and sizes the density
+     * map to match.
+     */
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        _viewport.setViewSize(w, h);
+        // Boards that can be zoomed out below a pixel per cell are shaded
+        // from the tile populations the simulator keeps.
+        _life.getSimulator().setMipmapsEnabled(_viewport.getMinScale() < 1);
+        if (_densityMap != null) {
+            _densityMap.recycle();
+        }
+        _densityMap = new DensityMap(w, h);
+        _densityMap.setColors(_colors[3], _background.getColor());
+    }
+    
+    /**
+     * Moves the Y-value of a touch down the amount of pixels the top of the
+     * screen takes up, so that it falls on the view.
+     */
+    private float toViewY(float y) {
+        return y - (75/_life.getDp());
     }
     
     /**
@@ -359,35 +743,137 @@ public class GridView extends View {
     	 * integer division and returns the correct "coordinate" in the 
     	 * two-dimensional cell array.
     	 */
-    	int xCoor = (int) Math.floor(x/_life.getCellSize());
-    	int yCoor = (int) Math.floor(y/_life.getCellSize());    	
-    	return _life.getGrid()[yCoor][xCoor] != 0;
+    	int xCoor = _viewport.toColumn(x);
+    	int yCoor = _viewport.toRow(y);
+    	return _frame != null && isOnBoard(yCoor, xCoor)
+    			&& _frame.isAlive(yCoor, xCoor);
     }
     
     /**
-     * Changes the clicked cell to the opposite state it was in prior, such as
-     * alive to dead or dead to alive.  An offset must be used to accurately 
-     * decide where the mouse pointer clicks.
+     * @return true if (y,x) is a cell of the board.
+     */
+    private boolean isOnBoard(int y, int x) {
+        return y >= 0 && y < _life.getHeight() && x >= 0
+                && x < _life.getWidth();
+    }
+    
+    /**
+     * Zooms the view while two fingers pinch and moves it over the board
+     * while they drag.  Once the view reaches an edge of an unbounded board,
+     * the drag pans the board itself over the plane.  Touches of a single
+     * finger that ends a drag are consumed as well, so that lifting the
+     * fingers does not flip cells.
      * 
-     * @param x - the x coordinate in pixels to be checked.
-     * @param y - the y coordinate in pixels to be checked.
+     * @param event - the touch event.
+     * @return true if the event was used for zooming or panning.
      */
-    public void flipCellLife(int x, int y){
-    	/* 
-    	 * Move the y coordinate up the amount of pixels the top of the screen
-    	 * takes up, so the location of the click is accurate.
-    	 */
-    	y = y - (75/_life.getDp());
-    	
-    	//Check if the coordinate in the two-dimensional array is alive or not.
-    	if(isAlive(x,y)){
-    		_life.getGrid()[(int) (y/_life.getCellSize())]
-    				[(int) x/_life.getCellSize()] = 0;
-    	} else {
-    		_life.getGrid()[(int) (y/_life.getCellSize())]
-    				[(int) x/_life.getCellSize()] = 1;
-    		
-    	}
-    	
+    public boolean panBoard(MotionEvent event){
+        int action = event.getActionMasked();
+        if (event.getPointerCount() < 2) {
+            boolean panning = _panning;
+            if (action == MotionEvent.ACTION_UP
+                    || action == MotionEvent.ACTION_CANCEL) {
+                _panning = false;
+            }
+            return panning;
+        }
+        _scaleDetector.onTouchEvent(event);
+        _stroking = false;
+        float y = (event.getY(0) + event.getY(1)) / 2;
+        float x = (event.getX(0) + event.getX(1)) / 2;
+        if (!_panning || action == MotionEvent.ACTION_POINTER_DOWN
+                || action == MotionEvent.ACTION_POINTER_UP) {
+            _panning = true;
+            _panY = y;
+            _panX = x;
+            _planeY = 0;
+            _planeX = 0;
+            return true;
+        }
+        
+        // Dragging the cells down moves the view up over the board.
+        float scale = _viewport.getScale();
+        float top = _viewport.getTop();
+        float left = _viewport.getLeft();
+        _viewport.scroll(_panX - x, _panY - y);
+        if (_life.canPan()) {
+            // The part of the drag the view could not follow moves the
+            // window over the plane, in whole cells.
+            _planeY += (_panY - y) / scale - (_viewport.getTop() - top);
+            _planeX += (_panX - x) / scale - (_viewport.getLeft() - left);
+            int dy = (int) _planeY;
+            int dx = (int) _planeX;
+            if (dy != 0 || dx != 0) {
+                _life.pan(dy, dx);
+                _planeY -= dy;
+                _planeX -= dx;
+            }
+        }
+        _panY = y;
+        _panX = x;
+        invalidate();
+        return true;
+    }
+    
+    /**
+     * Draws with a finger: touching a dead cell brings to life every cell
+     * the finger then crosses, touching a living cell kills them.  Every
+     * position the event recorded since the previous one is used, joined
+     * by straight lines so that fast strokes leave no gaps, and the cells
+     * of each event are set together between two generations.
+     * 
+     * @param event - the touch event of a single finger.
+     */
+    public void drawCells(MotionEvent event){
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_CANCEL) {
+            _stroking = false;
+            return;
+        }
+        if (action == MotionEvent.ACTION_DOWN) {
+            int row = _viewport.toRow(toViewY(event.getY()));
+            int column = _viewport.toColumn(event.getX());
+            if (!isOnBoard(row, column)) {
+                return;
+            }
+            /* The brush takes the opposite state of the cell on screen, so
+             * a tap still flips a single cell. */
+            _strokeAlive = _frame == null || !_frame.isAlive(row, column);
+            _strokeRow = row;
+            _strokeColumn = column;
+            _stroking = true;
+            EditBatch batch = new EditBatch(_strokeAlive);
+            batch.add(row, column);
+            _life.edit(batch);
+            return;
+        }
+        if (!_stroking) {
+            return;
+        }
+        
+        EditBatch batch = new EditBatch(_strokeAlive);
+        for (int h = 0; h < event.getHistorySize(); h++) {
+            strokeTo(batch, event.getHistoricalX(h), event.getHistoricalY(h));
+        }
+        strokeTo(batch, event.getX(), event.getY());
+        _life.edit(batch);
+        if (action == MotionEvent.ACTION_UP) {
+            _stroking = false;
+        }
+    }
+    
+    /**
+     * Adds the cells on the line from the last cell of the stroke to the
+     * cell under a touch position.
+     */
+    private void strokeTo(EditBatch batch, float x, float y) {
+        int row = _viewport.toRow(toViewY(y));
+        int column = _viewport.toColumn(x);
+        if (row == _strokeRow && column == _strokeColumn) {
+            return;
+        }
+        batch.addLine(_strokeRow, _strokeColumn, row, column);
+        _strokeRow = row;
+        _strokeColumn = column;
     }
-}
\ No newline at end of file
+}
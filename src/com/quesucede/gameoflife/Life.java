@@ -25,13 +25,50 @@
 
 package com.quesucede.gameoflife;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.app.ActivityManager;
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import android.preference.PreferenceManager;
 import android.util.Log;
 
+import com.quesucede.gameoflife.engine.BitGrid;
+import com.quesucede.gameoflife.engine.EditBatch;
+import com.quesucede.gameoflife.engine.Engines;
+import com.quesucede.gameoflife.engine.FiniteEngine;
+import com.quesucede.gameoflife.engine.Frame;
+import com.quesucede.gameoflife.engine.LifeEngine;
+import com.quesucede.gameoflife.engine.PatternReader;
+import com.quesucede.gameoflife.engine.PatternWriter;
+import com.quesucede.gameoflife.engine.PlaneEngine;
+import com.quesucede.gameoflife.engine.Rule;
+import com.quesucede.gameoflife.engine.Simulator;
+import com.quesucede.gameoflife.engine.Snapshot;
+
 /**
- * Class for the logic behind the Game of Life simulation.
+ * Class connecting the Game of Life simulation engine to the application. It
+ * sizes the board for the device, runs the engine on a simulation thread and
+ * feeds it the rule selected in the user settings.
  */
-public class Life {
+public class Life implements OnSharedPreferenceChangeListener {
+
+	// Most bytes taken by the generations recorded to step back to.
+	private static final long HISTORY_BUDGET = 8L * 1024 * 1024;
+
+	// Share of the memory of the application the board may take.
+	private static final int BOARD_MEMORY_SHARE = 4;
 
 	// Instance variables for the game board.
 	private int dp;
@@ -39,15 +76,24 @@ public class Life {
 	private int height;  
 	private int cellSize;
 	
-	// The two-dimensional array housing the alive and dead cells
-	private int[][] _lifeGrid;
+	// The simulation engine housing the alive and dead cells
+	private LifeEngine _lifeGrid;
 
 	// Context of the application
 	private Context _context;
 
+	// Settings snapshot, replaced whenever a preference changes.
+	private volatile GameSettings _settings;
+
+	// Worker threads for parallel stepping, or null on single core devices.
+	private ExecutorService _stepExecutor;
+
+	// Thread stepping the engine and publishing frames for the view.
+	private Simulator _simulator;
+
 	/**
 	 * Constructor for the Life class, initializes the size of each cell, the
-	 * proper width and height of the board, and the 2D cell array.
+	 * proper width and height of the board, and the simulation engine.
 	 */
 	public Life(Context context, int h, int w, int dpi) {
 		this._context = context;
@@ -55,20 +101,151 @@ public class Life {
 		/* Calculates the proper cell size depending on dpi of the game board,
 		 * must be casted to an int to avoid potential errors. */
 		this.cellSize = (int) ((dp)*8);
-		this.width = w/cellSize;
-		this.height = h/cellSize;
-		this._lifeGrid = new int[h/cellSize][w/cellSize];
-		
+
+		/* The board spans the screen as many times as the settings ask,
+		 * the view zooming and panning over it, halved until it fits in its
+		 * share of the memory of the application. */
+		GameSettings settings = GameSettings.load(context);
+		int boardSize = settings.getBoardSize();
+		long budget = ((ActivityManager) context.getSystemService(
+				Context.ACTIVITY_SERVICE)).getMemoryClass() * 1024L * 1024
+				/ BOARD_MEMORY_SHARE;
+		long bytesPerScreen = (long) (w/cellSize) * (h/cellSize)
+				* Engines.getBytesPerCell(settings.getEngine());
+		while (boardSize > 1
+				&& bytesPerScreen * boardSize * boardSize > budget) {
+			boardSize /= 2;
+		}
+		if (boardSize < settings.getBoardSize()) {
+			Log.w("Life", "Board size " + settings.getBoardSize()
+					+ " does not fit in memory, using " + boardSize + ".");
+		}
+		this.width = w/cellSize * boardSize;
+		this.height = h/cellSize * boardSize;
+
+		try {
+			this._lifeGrid = Engines.create(settings.getEngine(), height, width);
+		} catch (IllegalArgumentException e) {
+			Log.e("Life", e.getMessage());
+			this._lifeGrid = new BitGrid(height, width);
+		}
+
+		/* The bit grid splits large boards into one band per core, with the
+		 * calling thread computing one of the bands itself. */
+		int cores = Runtime.getRuntime().availableProcessors();
+		if (cores > 1 && _lifeGrid instanceof BitGrid) {
+			_stepExecutor = Executors.newFixedThreadPool(cores - 1,
+					new ThreadFactory() {
+						public Thread newThread(Runnable band) {
+							Thread thread = new Thread(band, "Life step");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			((BitGrid) _lifeGrid).setExecutor(_stepExecutor, cores);
+		}
+
+		/* The preferences only hold a weak reference to the listener, which
+		 * lives as long as this object does. */
+		SharedPreferences preferences = PreferenceManager
+				.getDefaultSharedPreferences(context);
+		preferences.registerOnSharedPreferenceChangeListener(this);
+		_settings = settings;
+		applyToEngine(settings);
+
 		initializeGrid();
+
+		_simulator = new Simulator(_lifeGrid);
+		if (canStepBack()) {
+			_simulator.setHistoryBudget(HISTORY_BUDGET);
+		}
+		_simulator.start();
 	}
 	
 	/**
-	 * @return the two dimensional cell array
+	 * @return the simulation engine holding the cells, which may only be
+	 *          used on the simulation thread through Simulator.post().
 	 */
-	public int[][] getGrid() {
+	public LifeEngine getGrid() {
 		return _lifeGrid;
 	}
 
+	/**
+	 * @return the simulator stepping the engine.
+	 */
+	public Simulator getSimulator() {
+		return _simulator;
+	}
+
+	/**
+	 * Flips the cell at (y,x) between alive and dead before the next
+	 * generation is computed.
+	 *
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 */
+	public void flipCell(final int y, final int x) {
+		_simulator.post(new Runnable() {
+			public void run() {
+				_lifeGrid.setAlive(y, x, !_lifeGrid.isAlive(y, x));
+			}
+		});
+	}
+
+	/**
+	 * Sets a batch of cells before the next generation is computed, all in
+	 * the same pause between generations.
+	 *
+	 * @param batch - the cells to set, which must not be changed anymore.
+	 */
+	public void edit(EditBatch batch) {
+		_simulator.apply(batch);
+	}
+
+	/**
+	 * @return true if past generations are recorded to step back to, which
+	 *          is only done for finite boards.
+	 */
+	public boolean canStepBack() {
+		return _lifeGrid instanceof FiniteEngine;
+	}
+
+	/**
+	 * Brings the board back to the previous recorded generation before the
+	 * next generation is computed.
+	 */
+	public void stepBack() {
+		_simulator.stepBack();
+	}
+
+	/**
+	 * @return true if the board is a window onto an unbounded plane that
+	 *          can be panned.
+	 */
+	public boolean canPan() {
+		return _lifeGrid instanceof PlaneEngine;
+	}
+
+	/**
+	 * Moves the window of an unbounded engine over the plane before the
+	 * next generation is computed.
+	 *
+	 * @param dy - number of rows to move down.
+	 * @param dx - number of columns to move right.
+	 */
+	public void pan(final int dy, final int dx) {
+		if (!canPan()) {
+			return;
+		}
+		_simulator.post(new Runnable() {
+			public void run() {
+				PlaneEngine plane = (PlaneEngine) _lifeGrid;
+				plane.setOrigin(plane.getOriginY() + dy,
+						plane.getOriginX() + dx);
+			}
+		});
+	}
+
 	/**
 	 * @return the height of the game board
 	 */
@@ -84,7 +261,7 @@ public class Life {
 	}
 
 	/**
-	 * @return the size of the cells
+	 * @return the size of the cells on screen before zooming
 	 */
 	public int getCellSize(){
 		return cellSize;
@@ -101,115 +278,185 @@ public class Life {
 	 * Defines an arbitrary Life pattern
 	 */
 	public void initializeGrid() {
-		resetGrid(_lifeGrid);
+		_lifeGrid.clear();
 
-		_lifeGrid[8][(width / 2) - 1] = 1;
-		_lifeGrid[8][(width / 2) + 1] = 1;
-		_lifeGrid[9][(width / 2) - 1] = 1;
-		_lifeGrid[9][(width / 2) + 1] = 1;
-		_lifeGrid[10][(width / 2) - 1] = 1;
-		_lifeGrid[10][(width / 2)] = 1;
-		_lifeGrid[10][(width / 2) + 1] = 1;
+		_lifeGrid.setAlive(8, (width / 2) - 1, true);
+		_lifeGrid.setAlive(8, (width / 2) + 1, true);
+		_lifeGrid.setAlive(9, (width / 2) - 1, true);
+		_lifeGrid.setAlive(9, (width / 2) + 1, true);
+		_lifeGrid.setAlive(10, (width / 2) - 1, true);
+		_lifeGrid.setAlive(10, (width / 2), true);
+		_lifeGrid.setAlive(10, (width / 2) + 1, true);
 	}
 
 	/**
-	 * Sets min, max, and spawn speed variables according to user settings and 
-	 * creates the next generation of cells depending on previously set rules.
+	 * Saves the generation on screen, with the rule it runs under.
+	 *
+	 * @param file - the snapshot file to write.
+	 * @throws IOException if the file cannot be written.
 	 */
-	public void generateNextGeneration() {
-		int neighbors;
-		int minimum = Integer.parseInt(VariablesActivity
-				.getMinimumVariable(this._context));
-		int maximum = Integer.parseInt(VariablesActivity
-				.getMaximumVariable(this._context));
-		int spawn = Integer.parseInt(VariablesActivity
-				.getSpawnVariable(this._context));
-
-		int[][] nextGenerationLifeGrid = new int[height][width];
+	public void save(File file) throws IOException {
+		Frame frame = _simulator.getFrames().copyLatest();
+		if (frame == null) {
+			throw new IOException("No generation to save yet.");
+		}
+		Snapshot.write(file, frame, frame.getRule());
+	}
 
-		for (int h = 0; h < height; h++) {
-			for (int w = 0; w < width; w++) {
-				neighbors = calculateNeighbors(h, w);
+	/**
+	 * Replaces the board with a saved one before the next generation is
+	 * computed.  The saved cells are centered on the board, which may not
+	 * be of the saved size after a rotation, and the rule and edge behavior
+	 * of the current settings are applied again over the saved ones.
+	 *
+	 * @param file - the snapshot file to read.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public void restore(File file) throws IOException {
+		final GameSettings settings = _settings;
+		_simulator.restore(Snapshot.read(file), new Runnable() {
+			public void run() {
+				applyToEngine(settings);
+			}
+		});
+	}
 
-				if (_lifeGrid[h][w] != 0) {
-					if ((neighbors >= minimum) && (neighbors <= maximum)) {
-						nextGenerationLifeGrid[h][w] = neighbors;
+	/**
+	 * Replaces the board with a pattern in RLE or Life 1.06, centered on the
+	 * board, before the next generation is computed.  The pattern is decoded
+	 * straight into the engine on the simulation thread, and the rule in an
+	 * RLE header is applied when the engine can run it.
+	 *
+	 * @param in - the pattern text, closed once read.
+	 */
+	public void importPattern(final InputStream in) {
+		_simulator.post(new Runnable() {
+			public void run() {
+				_lifeGrid.clear();
+				try {
+					PatternReader reader = new PatternReader(
+							new InputStreamReader(in, "UTF-8"));
+					Rule rule = reader.read(_lifeGrid, height / 2, width / 2);
+					if (rule != null) {
+						_lifeGrid.setRule(rule);
 					}
-				} else {
-					if (neighbors == spawn) {
-						nextGenerationLifeGrid[h][w] = spawn;
+				} catch (IOException e) {
+					Log.e("Life", "Could not import the pattern: "
+							+ e.getMessage());
+				} catch (IllegalArgumentException e) {
+					Log.e("Life", e.getMessage());
+				} finally {
+					try {
+						in.close();
+					} catch (IOException e) {
+						Log.e("Life", e.getMessage());
 					}
 				}
 			}
+		});
+	}
+
+	/**
+	 * Writes the generation on screen as an RLE pattern.
+	 *
+	 * @param file - the pattern file to write.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void exportPattern(File file) throws IOException {
+		Frame frame = _simulator.getFrames().copyLatest();
+		if (frame == null) {
+			throw new IOException("No generation to export yet.");
+		}
+		Writer out = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), "UTF-8"));
+		try {
+			new PatternWriter(out).writeRle(frame, frame.getRule());
+		} finally {
+			out.close();
 		}
-		copyGrid(nextGenerationLifeGrid, _lifeGrid);
 	}
 
 	/**
-	 * Resets all cells to dead.
-	 * 
-	 * @param grid - the cell array to be reset.
+	 * Stops the simulation thread, the step worker threads and listening for
+	 * preference changes.
 	 */
-	private void resetGrid(int[][] grid) {
-		for (int h = 0; h < height; h++) {
-			for (int w = 0; w < width; w++) {
-				grid[h][w] = 0;
-			}
+	public void release() {
+		PreferenceManager.getDefaultSharedPreferences(_context)
+				.unregisterOnSharedPreferenceChangeListener(this);
+		_simulator.stop();
+		if (_stepExecutor != null) {
+			((BitGrid) _lifeGrid).setExecutor(null, 1);
+			_stepExecutor.shutdown();
+			_stepExecutor = null;
 		}
 	}
 
 	/**
-	 * Calculates the neighbors of every living cell.
-	 * 
-	 * @param y - height of game board.
-	 * @param x - width of game board.
-	 * @return the neighbors of the cell.
-	 */
-	public int calculateNeighbors(int y, int x) {
-		int total = (_lifeGrid[y][x] != 0) ? -1 : 0;
-		for (int h = -1; h <= +1; h++) {
-			for (int w = -1; w <= +1; w++) {
-				if (_lifeGrid[(height + (y + h)) % height][(width + (x + w))
-				                                           % width] != 0) {
-					total++;
-				}
-			}
+	 * Rebuilds the settings snapshot when the user changes a preference,
+	 * and hands it to the engine if the rule or edge behavior changed.
+	 */
+	public void onSharedPreferenceChanged(SharedPreferences preferences,
+			String key) {
+		final GameSettings settings = GameSettings.load(_context);
+		GameSettings previous = _settings;
+		_settings = settings;
+		if (settings.getRule().equals(previous.getRule())
+				&& settings.getTopology() == previous.getTopology()) {
+			return;
 		}
-		return total;
+		_simulator.post(new Runnable() {
+			public void run() {
+				applyToEngine(settings);
+			}
+		});
 	}
 
 	/**
-	 * Creates a copy of the grid.
+	 * Hands the rule and edge behavior of the settings to the engine,
+	 * keeping the previous rule if the engine cannot run the new one.
+	 * Either is only set when it differs, since setting it drops the
+	 * incremental state of the engine.
 	 * 
-	 * @param source - Original grid to be copied.
-	 * @param destination - New grid to be copied into.
+	 * @param settings - the new settings.
 	 */
-	private void copyGrid(int[][] source, int[][] destination) {
-		for (int h = 0; h < height; h++) {
-			for (int w = 0; w < width; w++) {
-				destination[h][w] = source[h][w];
+	private void applyToEngine(GameSettings settings) {
+		if (!settings.getRule().equals(_lifeGrid.getRule())) {
+			try {
+				_lifeGrid.setRule(settings.getRule());
+			} catch (IllegalArgumentException e) {
+				Log.e("Life", e.getMessage());
+			}
+		}
+		if (_lifeGrid instanceof FiniteEngine) {
+			FiniteEngine engine = (FiniteEngine) _lifeGrid;
+			if (engine.getTopology() != settings.getTopology()) {
+				engine.setTopology(settings.getTopology());
 			}
 		}
 	}
 
 	/**
-	 * Fetches and animation speed integer from the VariablesActivity.
+	 * @return the current settings snapshot.
+	 */
+	public GameSettings getSettings() {
+		return _settings;
+	}
+
+	/**
+	 * Fetches the animation speed integer from the settings snapshot.
 	 * 
-	 * @return String of the theme name selected.
+	 * @return integer representation of the speed selected.
 	 */
 	public int getAnimationValue(){
-		return Integer.parseInt(PreferencesActivity
-				.getAnimationSpeed(_context));
+		return _settings.getAnimationSpeed();
 	}
 
 	/**
-	 * Fetches and decodes the color code from the VariablesActivity.
+	 * Fetches the color code from the settings snapshot.
 	 * 
-	 * @return String of the theme name selected.
+	 * @return integer representation of the color scheme selected.
 	 */
 	public int getColorValue(){
-		return Integer.parseInt(PreferencesActivity
-				.getColorCode(_context));
-
+		return _settings.getColorCode();
 	}
 }
\ No newline at end of file
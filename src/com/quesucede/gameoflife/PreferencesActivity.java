@@ -30,6 +30,8 @@ import android.os.Bundle;
 import android.preference.PreferenceActivity;
 import android.preference.PreferenceManager;
 
+import com.quesucede.gameoflife.engine.Engines;
+
 /**
  * Class for the initialization of the preferences.
  */
@@ -41,6 +43,14 @@ public class PreferencesActivity extends PreferenceActivity {
     private static final String OPTION_ANIMATION_SPEED_DEFAULT = "3";
     private static final String OPTION_COLOR_CODE = "COLOR_CODE_VARIABLE";
     private static final String OPTION_COLOR_CODE_DEFAULT = "0";
+    private static final String OPTION_ENGINE = "ENGINE_VARIABLE";
+    private static final String OPTION_ENGINE_DEFAULT = Engines.BIT_GRID;
+    private static final String OPTION_RENDERER = "RENDERER_VARIABLE";
+    private static final String OPTION_RENDERER_DEFAULT = GridView.RENDER_POINTS;
+    private static final String OPTION_BOARD_SIZE = "BOARD_SIZE_VARIABLE";
+    private static final String OPTION_BOARD_SIZE_DEFAULT = "1";
+    private static final String OPTION_HUD = "HUD_VARIABLE";
+    private static final boolean OPTION_HUD_DEFAULT = false;
 
     @SuppressWarnings("deprecation")
     @Override
@@ -51,7 +61,8 @@ public class PreferencesActivity extends PreferenceActivity {
     
     /**
      * Getter for the animation speed number selected in the preferences menu.
-     * "5" is the slowest speed option, while "1" is the fastest.
+     * "5" is the slowest speed option, while "1" is the fastest paced one
+     * and "0" computes generations as fast as possible.
      * 
      * @param context - Context of the Life activity.
      * @return The integer as a String representing the speed selected.
@@ -73,4 +84,50 @@ public class PreferencesActivity extends PreferenceActivity {
         return PreferenceManager.getDefaultSharedPreferences(context).
             getString(OPTION_COLOR_CODE, OPTION_COLOR_CODE_DEFAULT);
     }
+    
+    /**
+     * Getter for the simulation engine selected in the preferences menu.
+     * 
+     * @param context - Context of the Life activity.
+     * @return The name of the engine, as understood by Engines.create().
+     */
+    public static String getEngine(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).
+            getString(OPTION_ENGINE, OPTION_ENGINE_DEFAULT);
+    }
+    
+    /**
+     * Getter for the board size selected in the preferences menu, as the
+     * number of screens the board spans in each direction.
+     * 
+     * @param context - Context of the Life activity.
+     * @return The String containing the number of screens.
+     */
+    public static String getBoardSize(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).
+            getString(OPTION_BOARD_SIZE, OPTION_BOARD_SIZE_DEFAULT);
+    }
+    
+    /**
+     * Getter for the renderer selected in the preferences menu.
+     * 
+     * @param context - Context of the Life activity.
+     * @return GridView.RENDER_POINTS or GridView.RENDER_BITMAP.
+     */
+    public static String getRenderer(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).
+            getString(OPTION_RENDERER, OPTION_RENDERER_DEFAULT);
+    }
+    
+    /**
+     * Getter for whether the performance overlay is enabled in the
+     * preferences menu.
+     * 
+     * @param context - Context of the Life activity.
+     * @return true if the overlay is shown over the board.
+     */
+    public static boolean getShowHud(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).
+            getBoolean(OPTION_HUD, OPTION_HUD_DEFAULT);
+    }
 }
\ No newline at end of file
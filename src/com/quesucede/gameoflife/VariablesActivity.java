@@ -33,12 +33,16 @@ import android.preference.PreferenceManager;
 public class VariablesActivity extends PreferenceActivity {
 
     // Strings for the behavior variables' names and default values.
+    private static final String OPTION_RULE = "RULE_VARIABLE";
+    private static final String OPTION_RULE_DEFAULT = "";
     private static final String OPTION_MINIMUM = "UNDERPOPULATION_VARIABLE";
     private static final String OPTION_MINIMUM_DEFAULT = "2";
     private static final String OPTION_MAXIMUM = "OVERPOPULATION_VARIABLE";
     private static final String OPTION_MAXIMUM_DEFAULT = "3";
     private static final String OPTION_SPAWN = "SPAWN_VARIABLE";
     private static final String OPTION_SPAWN_DEFAULT = "3";
+    private static final String OPTION_EDGE = "EDGE_VARIABLE";
+    private static final String OPTION_EDGE_DEFAULT = "TORUS";
 
     @SuppressWarnings("deprecation")
     @Override
@@ -47,6 +51,18 @@ public class VariablesActivity extends PreferenceActivity {
         addPreferencesFromResource(R.xml.variables);
     }
     
+    /**
+     * Getter for the rulestring selected in the cell behavior menu.
+     * 
+     * @param context - Context of the Life activity.
+     * @return The rule in B/S notation, or an empty String if the minimum,
+     *          maximum and spawn variables should be used instead.
+     */
+    public static String getRuleVariable(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).
+            getString(OPTION_RULE, OPTION_RULE_DEFAULT);
+    }
+    
     /**
      * Getter for the minimum variable selected in the cell behavior menu.
      * 
@@ -80,4 +96,15 @@ public class VariablesActivity extends PreferenceActivity {
             getString(OPTION_SPAWN, OPTION_SPAWN_DEFAULT);
     }
     
+    /**
+     * Getter for the edge behavior selected in the cell behavior menu.
+     * 
+     * @param context - Context of the Life activity.
+     * @return The name of the board topology, "TORUS" or "BOUNDED".
+     */
+    public static String getEdgeVariable(Context context) {
+        return PreferenceManager.getDefaultSharedPreferences(context).
+            getString(OPTION_EDGE, OPTION_EDGE_DEFAULT);
+    }
+    
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife;
+
+/**
+ * The part of the board shown by the view, as the board position of the
+ * top left corner of the view and the size of a cell in pixels.  The board
+ * may be much larger than the view, and is kept covering the view while
+ * it is zoomed and panned, or at its top left corner when it is smaller.
+ */
+public class Viewport {
+
+	// Largest size of a cell on screen, in pixels.
+	private static final float MAX_SCALE = 64;
+
+	private final int rows;
+	private final int columns;
+
+	private int _viewWidth;
+	private int _viewHeight;
+
+	// Pixels per cell, and the smallest zoom, showing the whole board.
+	private float _scale;
+	private float _minScale;
+
+	// Board position of the top left corner of the view, in cells.
+	private float _left;
+	private float _top;
+
+	/**
+	 * Constructor for the Viewport class, showing the top of the board,
+	 * centered horizontally once the size of the view is known.
+	 *
+	 * @param rows - number of rows of the board.
+	 * @param columns - number of columns of the board.
+	 * @param scale - initial size of a cell, in pixels.
+	 */
+	public Viewport(int rows, int columns, float scale) {
+		this.rows = rows;
+		this.columns = columns;
+		this._scale = scale;
+		this._minScale = scale;
+	}
+
+	/**
+	 * Sets the size of the view, keeping the cell at its center in place.
+	 *
+	 * @param width - width of the view, in pixels.
+	 * @param height - height of the view, in pixels.
+	 */
+	public void setViewSize(int width, int height) {
+		boolean first = _viewWidth == 0;
+		float centerX = _left + _viewWidth / 2f / _scale;
+		float centerY = _top + _viewHeight / 2f / _scale;
+		_viewWidth = width;
+		_viewHeight = height;
+		_minScale = Math.min(_scale, Math.min((float) width / columns,
+				(float) height / rows));
+		if (first) {
+			_left = (columns - width / _scale) / 2;
+			_top = 0;
+		} else {
+			_left = centerX - width / 2f / _scale;
+			_top = centerY - height / 2f / _scale;
+		}
+		clamp();
+	}
+
+	/**
+	 * Zooms in or out, keeping the cell under a point of the view in place.
+	 *
+	 * @param factor - ratio of the new cell size to the current one.
+	 * @param focusX - X-value of the point in the view, in pixels.
+	 * @param focusY - Y-value of the point in the view, in pixels.
+	 */
+	public void zoom(float factor, float focusX, float focusY) {
+		float column = _left + focusX / _scale;
+		float row = _top + focusY / _scale;
+		_scale = Math.max(_minScale, Math.min(MAX_SCALE, _scale * factor));
+		_left = column - focusX / _scale;
+		_top = row - focusY / _scale;
+		clamp();
+	}
+
+	/**
+	 * Moves the view over the board, as far as the edges of the board allow.
+	 *
+	 * @param dx - pixels to move right.
+	 * @param dy - pixels to move down.
+	 */
+	public void scroll(float dx, float dy) {
+		_left += dx / _scale;
+		_top += dy / _scale;
+		clamp();
+	}
+
+	/**
+	 * Keeps the board covering the view, or at its top left corner when the
+	 * board is smaller than the view.
+	 */
+	private void clamp() {
+		_left = Math.max(0, Math.min(_left, columns - _viewWidth / _scale));
+		_top = Math.max(0, Math.min(_top, rows - _viewHeight / _scale));
+	}
+
+	/**
+	 * @return the size of a cell on screen, in pixels.
+	 */
+	public float getScale() {
+		return _scale;
+	}
+
+	/**
+	 * @return the smallest size of a cell on screen, with the whole board
+	 *          in view.
+	 */
+	public float getMinScale() {
+		return _minScale;
+	}
+
+	/**
+	 * @return the board column at the left edge of the view.
+	 */
+	public float getLeft() {
+		return _left;
+	}
+
+	/**
+	 * @return the board row at the top edge of the view.
+	 */
+	public float getTop() {
+		return _top;
+	}
+
+	/**
+	 * @return the first row of the board with cells in view.
+	 */
+	public int getFirstRow() {
+		return (int) _top;
+	}
+
+	/**
+	 * @return the last row of the board with cells in view.
+	 */
+	public int getLastRow() {
+		return Math.min(rows - 1, (int) (_top + _viewHeight / _scale));
+	}
+
+	/**
+	 * @return the first column of the board with cells in view.
+	 */
+	public int getFirstColumn() {
+		return (int) _left;
+	}
+
+	/**
+	 * @return the last column of the board with cells in view.
+	 */
+	public int getLastColumn() {
+		return Math.min(columns - 1, (int) (_left + _viewWidth / _scale));
+	}
+
+	/**
+	 * @param column - a board column, or a fraction of one.
+	 * @return the X-value of its left edge in the view, in pixels.
+	 */
+	public float toViewX(float column) {
+		return (column - _left) * _scale;
+	}
+
+	/**
+	 * @param row - a board row, or a fraction of one.
+	 * @return the Y-value of its top edge in the view, in pixels.
+	 */
+	public float toViewY(float row) {
+		return (row - _top) * _scale;
+	}
+
+	/**
+	 * @param x - X-value of a point in the view, in pixels.
+	 * @return the board column under it, which may be off the board.
+	 */
+	public int toColumn(float x) {
+		return (int) Math.floor(_left + x / _scale);
+	}
+
+	/**
+	 * @param y - Y-value of a point in the view, in pixels.
+	 * @return the board row under it, which may be off the board.
+	 */
+	public int toRow(float y) {
+		return (int) Math.floor(_top + y / _scale);
+	}
+}
@@ -0,0 +1,649 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life
+ * by Brett Kromkamp available at:
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+/**
+ * Bit-packed game board.  Every row of cells is stored as a run of longs
+ * holding one cell per bit, and the next generation is written into a second
+ * preallocated buffer which is then swapped with the current one, so stepping
+ * the board never allocates or copies.
+ *
+ * Bit j of word i in a row is the cell in column (64 * i + j).  Bits past the
+ * last column of a row are kept at zero between generations.
+ *
+ * The buffers also hold a one cell ghost border: a ghost row above and below
+ * the board, a ghost word before and after every row, and the bit just past
+ * the last column.  The border is refreshed once per generation, either with
+ * the cells from the opposite edge when the board wraps around like a torus
+ * or with dead cells when it is bounded.  Computing a word then needs no
+ * wrapping or edge tests at all.
+ *
+ * The board is also divided into tiles one word wide and TILE_ROWS rows
+ * tall, each flagged when its cells changed in the last generation.  Only
+ * tiles that changed or touch a changed tile are recomputed; the others
+ * already hold the same cells in both buffers and are left alone.
+ *
+ * With an executor set, a step is split into horizontal bands of whole tile
+ * rows that are computed in parallel.  Every band only reads the previous
+ * generation, including the rows just across its edges and across the wrap,
+ * and only writes its own rows and tile flags, so bands need no locking.
+ */
+public class BitGrid implements FiniteEngine, TrackingEngine {
+
+	// Number of cells held by one word of a row.
+	private static final int WORD_BITS = 64;
+
+	// Number of rows in a tile, which is always one word wide.
+	private static final int TILE_ROWS = 64;
+
+	// Dimensions of the board in cells.
+	private final int width;
+	private final int height;
+
+	// Number of longs used for a single row of cells, and the distance
+	// between two rows in the buffers including the two ghost words.
+	private final int wordsPerRow;
+	private final int stride;
+
+	// Bit index of the last column within the last word of a row.
+	private final int lastBit;
+
+	// Mask of the bits in the last word of a row that hold real cells.
+	private final long lastWordMask;
+
+	// Number of tiles across and down the board.
+	private final int tilesX;
+	private final int tilesY;
+
+	// The current generation and the buffer the next one is written into.
+	private long[] _cells;
+	private long[] _nextCells;
+
+	// Tiles changed by the last generation or an edit, the flags being
+	// collected for the next generation, and the tiles to recompute.
+	private boolean[] _changedTiles;
+	private boolean[] _nextChangedTiles;
+	private final boolean[] _activeTiles;
+
+	// Rule used to compute the next generation.
+	private Rule _rule = Rule.CONWAY;
+
+	// Behavior of the edges of the board.
+	private Topology _topology = Topology.TORUS;
+
+	// Number of generations computed so far.
+	private long _generation;
+
+	// Executor the bands of a step run on, or null to step on one thread.
+	private Executor _executor;
+	private Band[] _bands;
+
+	// Completion of the bands of the step in progress and the first error
+	// thrown by one of them.
+	private CountDownLatch _bandsDone;
+	private volatile Throwable _bandError;
+
+	/**
+	 * A horizontal band of tile rows computed as one task of a parallel step.
+	 */
+	private final class Band implements Runnable {
+		private final int firstTileRow;
+		private final int endTileRow;
+
+		Band(int firstTileRow, int endTileRow) {
+			this.firstTileRow = firstTileRow;
+			this.endTileRow = endTileRow;
+		}
+
+		public void run() {
+			try {
+				stepRows(firstTileRow * TILE_ROWS,
+						Math.min(endTileRow * TILE_ROWS, height));
+			} catch (Throwable e) {
+				_bandError = e;
+			} finally {
+				_bandsDone.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Constructor for the BitGrid class, allocates both generation buffers
+	 * for a board of the given size with every cell dead.
+	 *
+	 * @param height - number of rows of cells.
+	 * @param width - number of columns of cells.
+	 */
+	public BitGrid(int height, int width) {
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + WORD_BITS - 1) / WORD_BITS;
+		this.stride = wordsPerRow + 2;
+		this.lastBit = (width - 1) & (WORD_BITS - 1);
+		this.lastWordMask = (lastBit == WORD_BITS - 1) ? -1L
+				: (1L << (lastBit + 1)) - 1;
+		this._cells = new long[(height + 2) * stride];
+		this._nextCells = new long[(height + 2) * stride];
+
+		this.tilesX = wordsPerRow;
+		this.tilesY = (height + TILE_ROWS - 1) / TILE_ROWS;
+		this._changedTiles = new boolean[tilesX * tilesY];
+		this._nextChangedTiles = new boolean[tilesX * tilesY];
+		this._activeTiles = new boolean[tilesX * tilesY];
+		markAllChanged();
+	}
+
+	/**
+	 * @return the height of the board in cells
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return the width of the board in cells
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @return true if the cell is alive.
+	 */
+	public boolean isAlive(int y, int x) {
+		return ((_cells[index(y) + (x >>> 6)] >>> x) & 1L) != 0;
+	}
+
+	/**
+	 * Sets the cell at (y,x) to alive or dead.
+	 *
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @param alive - the new state of the cell.
+	 */
+	public void setAlive(int y, int x, boolean alive) {
+		int index = index(y) + (x >>> 6);
+		if (alive) {
+			_cells[index] |= 1L << x;
+		} else {
+			_cells[index] &= ~(1L << x);
+		}
+		_changedTiles[(y / TILE_ROWS) * tilesX + (x >>> 6)] = true;
+	}
+
+	/**
+	 * Resets all cells to dead.
+	 */
+	public void clear() {
+		for (int i = 0; i < _cells.length; i++) {
+			_cells[i] = 0;
+		}
+		markAllChanged();
+	}
+
+	/**
+	 * @param y - row of cells.
+	 * @return the index of the first word of the row in the buffers.
+	 */
+	private int index(int y) {
+		return (y + 1) * stride + 1;
+	}
+
+	/**
+	 * Flags every tile as changed so the whole board is recomputed.
+	 */
+	private void markAllChanged() {
+		for (int t = 0; t < _changedTiles.length; t++) {
+			_changedTiles[t] = true;
+		}
+	}
+
+	/**
+	 * Copies the current generation into an array laid out like the rows
+	 * of this grid, one word per 64 cells with each row starting on a new
+	 * word.
+	 *
+	 * @param destination - array of at least height * ((width + 63) / 64)
+	 *          longs.
+	 */
+	public void copyCells(long[] destination) {
+		for (int y = 0; y < height; y++) {
+			System.arraycopy(_cells, index(y), destination, y * wordsPerRow,
+					wordsPerRow);
+		}
+	}
+
+	/**
+	 * Replaces the current generation with cells laid out like the rows of
+	 * this grid, as copyCells() writes them.
+	 *
+	 * @param source - array of at least height * ((width + 63) / 64) longs.
+	 */
+	public void setCells(long[] source) {
+		int last = wordsPerRow - 1;
+		for (int y = 0; y < height; y++) {
+			int row = index(y);
+			System.arraycopy(source, y * wordsPerRow, _cells, row,
+					wordsPerRow);
+			_cells[row + last] &= lastWordMask;
+		}
+		markAllChanged();
+	}
+
+	/**
+	 * @return the number of living cells on the board.
+	 */
+	public long getPopulation() {
+		long population = 0;
+		for (int y = 0; y < height; y++) {
+			int row = index(y);
+			for (int i = 0; i < wordsPerRow; i++) {
+				population += Long.bitCount(_cells[row + i]);
+			}
+		}
+		return population;
+	}
+
+	/**
+	 * Counts the living neighbors of a single cell, following the topology
+	 * at the edges of the board.
+	 *
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @return the number of living neighbors.
+	 */
+	public int countNeighbors(int y, int x) {
+		int total = isAlive(y, x) ? -1 : 0;
+		for (int h = -1; h <= +1; h++) {
+			for (int w = -1; w <= +1; w++) {
+				if (isNeighborAlive(y + h, x + w)) {
+					total++;
+				}
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Reads a cell that may lie one step beyond the edges of the board.
+	 */
+	private boolean isNeighborAlive(int y, int x) {
+		if (y < 0 || y >= height || x < 0 || x >= width) {
+			if (_topology == Topology.BOUNDED) {
+				return false;
+			}
+			y = (y < 0) ? y + height : (y >= height) ? y - height : y;
+			x = (x < 0) ? x + width : (x >= width) ? x - width : x;
+		}
+		return isAlive(y, x);
+	}
+
+	public long getGeneration() {
+		return _generation;
+	}
+
+	/**
+	 * Makes each step run in parallel bands, one of them on the calling
+	 * thread and the rest on the executor.  The executor is not owned by the
+	 * grid and is never shut down by it.
+	 *
+	 * @param executor - executor for the bands, or null to step serially.
+	 * @param bands - number of bands to split the board into; boards with
+	 *          fewer tile rows than this use one band per tile row.
+	 */
+	public void setExecutor(Executor executor, int bands) {
+		bands = Math.min(bands, tilesY);
+		if (executor == null || bands < 2) {
+			this._executor = null;
+			this._bands = null;
+			return;
+		}
+		this._bands = new Band[bands];
+		for (int b = 0; b < bands; b++) {
+			_bands[b] = new Band(b * tilesY / bands, (b + 1) * tilesY / bands);
+		}
+		this._executor = executor;
+	}
+
+	public Rule getRule() {
+		return _rule;
+	}
+
+	public void setRule(Rule rule) {
+		this._rule = rule;
+		// Tiles that were still under the old rule may not be under this one.
+		markAllChanged();
+	}
+
+	public Topology getTopology() {
+		return _topology;
+	}
+
+	public void setTopology(Topology topology) {
+		this._topology = topology;
+		markAllChanged();
+	}
+
+	/**
+	 * Computes the next generation of the tiles that may have changed.
+	 */
+	public void step() {
+		refreshGhosts(_cells);
+		findActiveTiles();
+		for (int t = 0; t < _nextChangedTiles.length; t++) {
+			_nextChangedTiles[t] = false;
+		}
+
+		if (_executor == null) {
+			stepRows(0, height);
+		} else {
+			stepBands();
+		}
+		clearEastGhosts(_cells);
+
+		long[] cells = _cells;
+		_cells = _nextCells;
+		_nextCells = cells;
+		boolean[] changed = _changedTiles;
+		_changedTiles = _nextChangedTiles;
+		_nextChangedTiles = changed;
+		_generation++;
+	}
+
+	/**
+	 * Computes the next generation and lists the cells it changed, which
+	 * are found in the tiles flagged as changed by comparing both buffers.
+	 */
+	public void step(ChangeList changes) {
+		step();
+		if (changes == null) {
+			return;
+		}
+		changes.reset(width);
+		long[] cells = _cells;
+		long[] previous = _nextCells;
+		for (int ty = 0; ty < tilesY; ty++) {
+			int endRow = Math.min((ty + 1) * TILE_ROWS, height);
+			for (int tx = 0; tx < tilesX; tx++) {
+				if (!_changedTiles[ty * tilesX + tx]) {
+					continue;
+				}
+				for (int y = ty * TILE_ROWS; y < endRow; y++) {
+					int word = index(y) + tx;
+					long alive = cells[word];
+					long diff = alive ^ previous[word];
+					int base = y * width + tx * WORD_BITS;
+					while (diff != 0) {
+						int bit = Long.numberOfTrailingZeros(diff);
+						diff &= diff - 1;
+						if (((alive >>> bit) & 1L) != 0) {
+							changes.addBorn(base + bit);
+						} else {
+							changes.addDied(base + bit);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fills the ghost border around the board from the opposite edges, or
+	 * with dead cells on a bounded board.
+	 *
+	 * @param cells - the buffer holding the current generation.
+	 */
+	private void refreshGhosts(long[] cells) {
+		boolean torus = _topology == Topology.TORUS;
+		int last = wordsPerRow - 1;
+		for (int y = 0; y < height; y++) {
+			int row = index(y);
+			if (torus) {
+				// West ghost is the last column, east ghost the first one.
+				cells[row - 1] = (cells[row + last] >>> lastBit) << 63;
+				long first = cells[row] & 1L;
+				if (lastBit == WORD_BITS - 1) {
+					cells[row + wordsPerRow] = first;
+				} else {
+					cells[row + wordsPerRow] = 0;
+					cells[row + last] |= first << (lastBit + 1);
+				}
+			} else {
+				cells[row - 1] = 0;
+				cells[row + wordsPerRow] = 0;
+			}
+		}
+
+		int top = 0;
+		int bottom = (height + 1) * stride;
+		if (torus) {
+			System.arraycopy(cells, index(height - 1) - 1, cells, top, stride);
+			System.arraycopy(cells, index(0) - 1, cells, bottom, stride);
+		} else {
+			for (int i = 0; i < stride; i++) {
+				cells[top + i] = 0;
+				cells[bottom + i] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Clears the east ghost bits kept past the last column of every row, so
+	 * the buffer can be reused for a later generation.
+	 *
+	 * @param cells - the buffer the ghosts were refreshed in.
+	 */
+	private void clearEastGhosts(long[] cells) {
+		int last = wordsPerRow - 1;
+		for (int y = 0; y < height; y++) {
+			cells[index(y) + last] &= lastWordMask;
+		}
+	}
+
+	/**
+	 * Runs every band but the last on the executor and the last on the
+	 * calling thread, then waits for all of them to finish.
+	 */
+	private void stepBands() {
+		Band[] bands = _bands;
+		_bandError = null;
+		_bandsDone = new CountDownLatch(bands.length);
+		for (int b = 0; b < bands.length - 1; b++) {
+			_executor.execute(bands[b]);
+		}
+		bands[bands.length - 1].run();
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				_bandsDone.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (_bandError != null) {
+			throw new RuntimeException("Band of a parallel step failed.",
+					_bandError);
+		}
+	}
+
+	/**
+	 * Computes the next generation of the active tiles in a range of rows.
+	 *
+	 * @param firstRow - first row to compute.
+	 * @param endRow - row after the last one to compute.
+	 */
+	private void stepRows(int firstRow, int endRow) {
+		int surviveMask = _rule.getSurviveMask();
+		int birthMask = _rule.getBirthMask();
+		long[] cells = _cells;
+		long[] next = _nextCells;
+		boolean[] nextChanged = _nextChangedTiles;
+		boolean[] active = _activeTiles;
+
+		int last = wordsPerRow - 1;
+		for (int y = firstRow; y < endRow; y++) {
+			int row = index(y);
+			int above = row - stride;
+			int below = row + stride;
+			int tileRow = (y / TILE_ROWS) * tilesX;
+
+			for (int i = 0; i < wordsPerRow; i++) {
+				if (!active[tileRow + i]) {
+					continue;
+				}
+				long result = nextWord(cells, above, row, below, i,
+						surviveMask, birthMask);
+				next[row + i] = result;
+				if (result != cells[row + i]) {
+					nextChanged[tileRow + i] = true;
+				}
+			}
+			// The east ghost bit is computed like a cell and dropped here.
+			next[row + last] &= lastWordMask;
+		}
+	}
+
+	/**
+	 * Marks the tiles that changed in the last generation, along with their
+	 * eight neighbors wrapping around the board, as needing recomputation.
+	 * Bounded boards wrap here as well, which only costs a few extra tiles.
+	 */
+	private void findActiveTiles() {
+		for (int ty = 0; ty < tilesY; ty++) {
+			int up = ((ty == 0) ? tilesY - 1 : ty - 1) * tilesX;
+			int middle = ty * tilesX;
+			int down = ((ty == tilesY - 1) ? 0 : ty + 1) * tilesX;
+			for (int tx = 0; tx < tilesX; tx++) {
+				int left = (tx == 0) ? tilesX - 1 : tx - 1;
+				int right = (tx == tilesX - 1) ? 0 : tx + 1;
+				_activeTiles[middle + tx] =
+						_changedTiles[up + left] || _changedTiles[up + tx]
+						|| _changedTiles[up + right]
+						|| _changedTiles[middle + left]
+						|| _changedTiles[middle + tx]
+						|| _changedTiles[middle + right]
+						|| _changedTiles[down + left] || _changedTiles[down + tx]
+						|| _changedTiles[down + right];
+			}
+		}
+	}
+
+	/**
+	 * Computes the next generation of one word, 64 cells at a time.  The
+	 * eight neighbors of every cell in the word are summed into four bit
+	 * planes with carry-save adders, and the planes are then matched against
+	 * the neighbor counts that let a cell survive or be born.
+	 *
+	 * @param cells - the current generation with its ghost border.
+	 * @param above - index of the row above.
+	 * @param row - index of the row holding the word.
+	 * @param below - index of the row below.
+	 * @param i - index of the word within its row.
+	 * @return the word in the next generation, including the east ghost
+	 *          bit if it falls in the word.
+	 */
+	private long nextWord(long[] cells, int above, int row, int below, int i,
+			int surviveMask, int birthMask) {
+		long aboveWest = west(cells, above, i);
+		long aboveCenter = cells[above + i];
+		long aboveEast = east(cells, above, i);
+		long rowWest = west(cells, row, i);
+		long rowEast = east(cells, row, i);
+		long belowWest = west(cells, below, i);
+		long belowCenter = cells[below + i];
+		long belowEast = east(cells, below, i);
+
+		// Each of the three rows sums to a two bit value.
+		long aboveXor = aboveWest ^ aboveCenter;
+		long aboveOnes = aboveXor ^ aboveEast;
+		long aboveTwos = (aboveWest & aboveCenter) | (aboveXor & aboveEast);
+		long rowOnes = rowWest ^ rowEast;
+		long rowTwos = rowWest & rowEast;
+		long belowXor = belowWest ^ belowCenter;
+		long belowOnes = belowXor ^ belowEast;
+		long belowTwos = (belowWest & belowCenter) | (belowXor & belowEast);
+
+		// Add the rows together into the four bit planes of the count.
+		long onesXor = aboveOnes ^ rowOnes;
+		long s0 = onesXor ^ belowOnes;
+		long onesCarry = (aboveOnes & rowOnes) | (onesXor & belowOnes);
+		long twosXor = aboveTwos ^ rowTwos;
+		long twosSum = twosXor ^ belowTwos;
+		long twosCarry = (aboveTwos & rowTwos) | (twosXor & belowTwos);
+		long s1 = twosSum ^ onesCarry;
+		long foursCarry = twosSum & onesCarry;
+		long s2 = twosCarry ^ foursCarry;
+		long s3 = twosCarry & foursCarry;
+
+		long cell = cells[row + i];
+		return (cell & matchCount(surviveMask, s0, s1, s2, s3))
+				| (~cell & matchCount(birthMask, s0, s1, s2, s3));
+	}
+
+	/**
+	 * Shifts a word of a row so that every bit holds its west neighbor,
+	 * pulling the carried bit from the previous word or the west ghost.
+	 */
+	private static long west(long[] cells, int row, int i) {
+		return (cells[row + i] << 1) | (cells[row + i - 1] >>> (WORD_BITS - 1));
+	}
+
+	/**
+	 * Shifts a word of a row so that every bit holds its east neighbor,
+	 * pulling the carried bit from the next word or the east ghost.
+	 */
+	private static long east(long[] cells, int row, int i) {
+		return (cells[row + i] >>> 1) | (cells[row + i + 1] << (WORD_BITS - 1));
+	}
+
+	/**
+	 * Selects the bits whose neighbor count, given as four bit planes, is
+	 * one of the counts set in the mask.
+	 */
+	private static long matchCount(int mask, long s0, long s1, long s2,
+			long s3) {
+		long result = 0;
+		while (mask != 0) {
+			int count = Integer.numberOfTrailingZeros(mask);
+			mask &= mask - 1;
+			result |= ((count & 1) != 0 ? s0 : ~s0)
+					& ((count & 2) != 0 ? s1 : ~s1)
+					& ((count & 4) != 0 ? s2 : ~s2)
+					& ((count & 8) != 0 ? s3 : ~s3);
+		}
+		return result;
+	}
+}
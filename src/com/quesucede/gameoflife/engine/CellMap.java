@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Open addressing hash map from packed cell coordinates to small counts,
+ * stored in primitive arrays so that no key or value is ever boxed.  Slots
+ * are probed linearly and removals shift the following entries back, so no
+ * tombstones build up.  The table is kept at most half full.
+ */
+final class CellMap {
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	// Keys of the slots, and their values plus one with zero marking a free
+	// slot.
+	private long[] _keys;
+	private byte[] _values;
+	private int _mask;
+	private int _size;
+
+	CellMap() {
+		allocate(MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Packs plane coordinates into a key.
+	 */
+	static long key(int y, int x) {
+		return ((long) y << 32) | (x & 0xffffffffL);
+	}
+
+	static int keyY(long key) {
+		return (int) (key >> 32);
+	}
+
+	static int keyX(long key) {
+		return (int) key;
+	}
+
+	int size() {
+		return _size;
+	}
+
+	/**
+	 * @return the number of slots, for iterating with slotValue().
+	 */
+	int capacity() {
+		return _keys.length;
+	}
+
+	long slotKey(int slot) {
+		return _keys[slot];
+	}
+
+	/**
+	 * @return the value in the slot, or -1 if the slot is free.
+	 */
+	int slotValue(int slot) {
+		return _values[slot] - 1;
+	}
+
+	/**
+	 * @return the value of the key, or -1 if the key is absent.
+	 */
+	int get(long key) {
+		int slot = find(key);
+		return (slot < 0) ? -1 : _values[slot] - 1;
+	}
+
+	/**
+	 * Adds to the value of a key, inserting the key with value zero first
+	 * if it is absent.
+	 *
+	 * @param key - the key.
+	 * @param delta - amount added, keeping the value below 127.
+	 */
+	void add(long key, int delta) {
+		int slot = hash(key) & _mask;
+		while (_values[slot] != 0) {
+			if (_keys[slot] == key) {
+				_values[slot] += delta;
+				return;
+			}
+			slot = (slot + 1) & _mask;
+		}
+		_keys[slot] = key;
+		_values[slot] = (byte) (delta + 1);
+		if (++_size * 2 > _keys.length) {
+			rehash(_keys.length * 2);
+		}
+	}
+
+	/**
+	 * Removes a key if it is present.
+	 */
+	void remove(long key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return;
+		}
+		_size--;
+		// Shift back the entries that probed past the freed slot.
+		int free = slot;
+		int next = (slot + 1) & _mask;
+		while (_values[next] != 0) {
+			int home = hash(_keys[next]) & _mask;
+			if (((next - home) & _mask) >= ((next - free) & _mask)) {
+				_keys[free] = _keys[next];
+				_values[free] = _values[next];
+				free = next;
+			}
+			next = (next + 1) & _mask;
+		}
+		_values[free] = 0;
+	}
+
+	/**
+	 * Removes every key, shrinking the table if it is much larger than
+	 * the expected number of keys.
+	 *
+	 * @param expected - number of keys about to be added.
+	 */
+	void clear(int expected) {
+		int capacity = tableSize(expected);
+		if (_keys.length > capacity * 4) {
+			allocate(capacity);
+		} else {
+			for (int i = 0; i < _values.length; i++) {
+				_values[i] = 0;
+			}
+		}
+		_size = 0;
+	}
+
+	private int find(long key) {
+		int slot = hash(key) & _mask;
+		while (_values[slot] != 0) {
+			if (_keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & _mask;
+		}
+		return -1;
+	}
+
+	private void rehash(int capacity) {
+		long[] keys = _keys;
+		byte[] values = _values;
+		allocate(capacity);
+		for (int i = 0; i < keys.length; i++) {
+			if (values[i] != 0) {
+				int slot = hash(keys[i]) & _mask;
+				while (_values[slot] != 0) {
+					slot = (slot + 1) & _mask;
+				}
+				_keys[slot] = keys[i];
+				_values[slot] = values[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		_keys = new long[capacity];
+		_values = new byte[capacity];
+		_mask = capacity - 1;
+	}
+
+	/**
+	 * @return the smallest power of two table that holds the keys at most
+	 *          half full.
+	 */
+	private static int tableSize(int keys) {
+		int capacity = MINIMUM_CAPACITY;
+		while (capacity < keys * 2) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * The cells born and the cells that died in one generation, as two lists of
+ * cell indices y * width + x.  The arrays grow as needed and are reused for
+ * every generation, so a list that has seen the busiest generation no
+ * longer allocates.
+ */
+public final class ChangeList {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private int width;
+
+	private int[] _born = new int[INITIAL_CAPACITY];
+	private int _bornCount;
+	private int[] _died = new int[INITIAL_CAPACITY];
+	private int _diedCount;
+
+	/**
+	 * @return the width of the board the indices refer to.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the number of cells born.
+	 */
+	public int getBornCount() {
+		return _bornCount;
+	}
+
+	/**
+	 * @return the indices of the cells born, valid up to getBornCount().
+	 */
+	public int[] getBorn() {
+		return _born;
+	}
+
+	/**
+	 * @return the number of cells that died.
+	 */
+	public int getDiedCount() {
+		return _diedCount;
+	}
+
+	/**
+	 * @return the indices of the cells that died, valid up to
+	 *          getDiedCount().
+	 */
+	public int[] getDied() {
+		return _died;
+	}
+
+	/**
+	 * Empties both lists before a generation is recorded.
+	 *
+	 * @param width - the width of the board the indices will refer to.
+	 */
+	void reset(int width) {
+		this.width = width;
+		this._bornCount = 0;
+		this._diedCount = 0;
+	}
+
+	void addBorn(int index) {
+		if (_bornCount == _born.length) {
+			_born = grow(_born);
+		}
+		_born[_bornCount++] = index;
+	}
+
+	void addDied(int index) {
+		if (_diedCount == _died.length) {
+			_died = grow(_died);
+		}
+		_died[_diedCount++] = index;
+	}
+
+	private static int[] grow(int[] list) {
+		int[] larger = new int[list.length * 2];
+		System.arraycopy(list, 0, larger, 0, list.length);
+		return larger;
+	}
+}
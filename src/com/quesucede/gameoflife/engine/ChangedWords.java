@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Set of the words of a board, in the layout of a Frame, holding cells that
+ * changed since some earlier state.  Words are listed once however many of
+ * their cells change.  Once more words changed than are worth listing, or
+ * the board changed in a way that was not tracked, the set is no longer
+ * valid and its readers have to compare whole boards instead.
+ */
+final class ChangedWords {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final int wordsPerRow;
+
+	// Most words listed before the set gives up.
+	private final int limit;
+
+	// Whether each word of the board is listed.
+	private final boolean[] _isListed;
+
+	private int[] _words = new int[INITIAL_CAPACITY];
+	private int _count;
+	private boolean _valid;
+
+	/**
+	 * Constructor for the ChangedWords class, which starts out invalid.
+	 *
+	 * @param height - number of rows of cells.
+	 * @param width - number of columns of cells.
+	 */
+	ChangedWords(int height, int width) {
+		this.wordsPerRow = (width + 63) / 64;
+		int words = height * wordsPerRow;
+		this.limit = Math.max(INITIAL_CAPACITY, words / 8);
+		this._isListed = new boolean[words];
+	}
+
+	/**
+	 * Adds the words of the cells one generation changed.
+	 *
+	 * @param changes - the cells born and died.
+	 */
+	void add(ChangeList changes) {
+		int width = changes.getWidth();
+		int[] born = changes.getBorn();
+		for (int i = 0; i < changes.getBornCount() && _valid; i++) {
+			add(born[i] / width, born[i] % width);
+		}
+		int[] died = changes.getDied();
+		for (int i = 0; i < changes.getDiedCount() && _valid; i++) {
+			add(died[i] / width, died[i] % width);
+		}
+	}
+
+	private void add(int y, int x) {
+		int word = y * wordsPerRow + (x >>> 6);
+		if (_isListed[word]) {
+			return;
+		}
+		if (_count == limit) {
+			invalidate();
+			return;
+		}
+		if (_count == _words.length) {
+			int[] larger = new int[Math.min(_words.length * 2, limit)];
+			System.arraycopy(_words, 0, larger, 0, _count);
+			_words = larger;
+		}
+		_isListed[word] = true;
+		_words[_count++] = word;
+	}
+
+	/**
+	 * Empties the set, which is valid again.
+	 */
+	void reset() {
+		clear();
+		_valid = true;
+	}
+
+	/**
+	 * Gives up on the set until the next reset().
+	 */
+	void invalidate() {
+		clear();
+		_valid = false;
+	}
+
+	private void clear() {
+		for (int i = 0; i < _count; i++) {
+			_isListed[_words[i]] = false;
+		}
+		_count = 0;
+	}
+
+	/**
+	 * @return true if every changed word is listed.
+	 */
+	boolean isValid() {
+		return _valid;
+	}
+
+	/**
+	 * @return the number of words listed.
+	 */
+	int getCount() {
+		return _count;
+	}
+
+	/**
+	 * @return the indices y * wordsPerRow + i of the words listed, valid up
+	 *          to getCount().
+	 */
+	int[] getWords() {
+		return _words;
+	}
+}
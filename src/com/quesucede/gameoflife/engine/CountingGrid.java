@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Engine keeping a persistent count of the living neighbors of every cell.
+ * The counts are updated only around cells that flipped, and only cells
+ * whose state or count changed in the last generation are looked at again,
+ * since every other cell is certain to keep its state.  Reading the count of
+ * a cell is a single array access, which also makes coloring cells by their
+ * number of neighbors free.
+ *
+ * The arrays are padded with a border of ghost cells, so the eight neighbors
+ * of any cell, or of any ghost next to the board, are at fixed offsets with
+ * no wrapping.  On a torus, a cell flipping on an edge of the board also
+ * flips its ghost images beyond the opposite edges, which carries the change
+ * to the cells there; on a bounded board the ghosts stay dead.
+ */
+public class CountingGrid implements FiniteEngine, TrackingEngine {
+
+	// Width of the ghost border: the ghost images of edge cells plus one
+	// more ring so that their neighbors are inside the arrays too.
+	private static final int BORDER = 2;
+
+	private final int width;
+	private final int height;
+
+	// Distance between two rows in the padded arrays.
+	private final int stride;
+
+	// Offsets of the eight neighbors of a cell in the padded arrays.
+	private final int[] neighborOffsets;
+
+	// State (0 or 1) and number of living neighbors of each cell, indexed
+	// by index(y, x).
+	private final byte[] cells;
+	private final byte[] counts;
+
+	// Cells to look at in the next generation, with a flag per cell so that
+	// none is listed twice.  Ghost cells are permanently flagged so they are
+	// never listed.
+	private final int[] _dirty;
+	private final boolean[] _isDirty;
+	private int _dirtyCount;
+
+	// Cells found to flip during the last step.
+	private final int[] _flips;
+	private int _flipCount;
+
+	// Rows and columns an edge cell appears in, its own and its images.
+	private final int[] _rowImages = new int[3];
+	private final int[] _columnImages = new int[3];
+
+	private Rule _rule = Rule.CONWAY;
+	private byte[] _table = Rule.CONWAY.toTable();
+	private Topology _topology = Topology.TORUS;
+	private long _generation;
+	private long _population;
+
+	/**
+	 * Constructor for the CountingGrid class, creates a board of the given
+	 * size with every cell dead.
+	 *
+	 * @param height - number of rows of cells.
+	 * @param width - number of columns of cells.
+	 */
+	public CountingGrid(int height, int width) {
+		this.width = width;
+		this.height = height;
+		this.stride = width + 2 * BORDER;
+		this.neighborOffsets = new int[] {
+				-stride - 1, -stride, -stride + 1,
+				-1, +1,
+				stride - 1, stride, stride + 1 };
+
+		int size = (height + 2 * BORDER) * stride;
+		this.cells = new byte[size];
+		this.counts = new byte[size];
+		this._isDirty = new boolean[size];
+		this._dirty = new int[height * width];
+		this._flips = new int[height * width];
+		for (int i = 0; i < size; i++) {
+			_isDirty[i] = true;
+		}
+		markAllDirty();
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the index of the cell at (y,x) in the padded arrays.
+	 */
+	private int index(int y, int x) {
+		return (y + BORDER) * stride + x + BORDER;
+	}
+
+	public boolean isAlive(int y, int x) {
+		return cells[index(y, x)] != 0;
+	}
+
+	public void setAlive(int y, int x, boolean alive) {
+		int index = index(y, x);
+		if ((cells[index] != 0) != alive) {
+			flip(index);
+		}
+	}
+
+	public void clear() {
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = 0;
+			counts[i] = 0;
+		}
+		_population = 0;
+		markAllDirty();
+	}
+
+	/**
+	 * Reads the persistent count of a cell.
+	 */
+	public int countNeighbors(int y, int x) {
+		return counts[index(y, x)];
+	}
+
+	public long getPopulation() {
+		return _population;
+	}
+
+	public long getGeneration() {
+		return _generation;
+	}
+
+	public Rule getRule() {
+		return _rule;
+	}
+
+	public void setRule(Rule rule) {
+		this._rule = rule;
+		this._table = rule.toTable();
+		// Cells that were stable under the old rule may not be under this one.
+		markAllDirty();
+	}
+
+	public Topology getTopology() {
+		return _topology;
+	}
+
+	/**
+	 * Changes the edge behavior and recounts the neighbors of every cell.
+	 */
+	public void setTopology(Topology topology) {
+		this._topology = topology;
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = 0;
+		}
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (cells[index(y, x)] != 0) {
+					addToNeighbors(y, x, 1);
+				}
+			}
+		}
+		markAllDirty();
+	}
+
+	/**
+	 * Looks up the next state of every dirty cell, then flips the cells that
+	 * change, updating the counts of their neighbors.
+	 */
+	public void step() {
+		byte[] table = _table;
+		int flipCount = 0;
+		for (int d = 0; d < _dirtyCount; d++) {
+			int index = _dirty[d];
+			_isDirty[index] = false;
+			int state = cells[index];
+			if (table[state * Rule.TABLE_STRIDE + counts[index]] != state) {
+				_flips[flipCount++] = index;
+			}
+		}
+		_dirtyCount = 0;
+		_flipCount = flipCount;
+
+		for (int f = 0; f < flipCount; f++) {
+			flip(_flips[f]);
+		}
+		_generation++;
+	}
+
+	/**
+	 * Computes the next generation and lists the cells it flipped.
+	 */
+	public void step(ChangeList changes) {
+		step();
+		if (changes == null) {
+			return;
+		}
+		changes.reset(width);
+		for (int f = 0; f < _flipCount; f++) {
+			int index = _flips[f];
+			int cell = (index / stride - BORDER) * width
+					+ index % stride - BORDER;
+			if (cells[index] != 0) {
+				changes.addBorn(cell);
+			} else {
+				changes.addDied(cell);
+			}
+		}
+	}
+
+	/**
+	 * Copies the cells into an array laid out like the rows of a BitGrid.
+	 *
+	 * @param destination - array of at least height * ((width + 63) / 64)
+	 *          longs.
+	 */
+	public void copyCells(long[] destination) {
+		int wordsPerRow = (width + 63) / 64;
+		for (int y = 0; y < height; y++) {
+			int row = index(y, 0);
+			for (int i = 0; i < wordsPerRow; i++) {
+				long word = 0;
+				int end = Math.min(64, width - 64 * i);
+				for (int j = 0; j < end; j++) {
+					word |= (long) cells[row + 64 * i + j] << j;
+				}
+				destination[y * wordsPerRow + i] = word;
+			}
+		}
+	}
+
+	/**
+	 * Copies the neighbor counts, indexed by y * width + x.
+	 *
+	 * @param destination - array of at least height * width bytes.
+	 */
+	public void copyNeighborCounts(byte[] destination) {
+		for (int y = 0; y < height; y++) {
+			System.arraycopy(counts, index(y, 0), destination, y * width,
+					width);
+		}
+	}
+
+	/**
+	 * Flips a cell and carries the change to the counts of its neighbors.
+	 */
+	private void flip(int index) {
+		int delta;
+		if (cells[index] != 0) {
+			cells[index] = 0;
+			delta = -1;
+			_population--;
+		} else {
+			cells[index] = 1;
+			delta = 1;
+			_population++;
+		}
+		markDirty(index);
+
+		int y = index / stride - BORDER;
+		int x = index % stride - BORDER;
+		if (y > 0 && y < height - 1 && x > 0 && x < width - 1) {
+			// Interior cells have no ghost images.
+			for (int n = 0; n < 8; n++) {
+				int neighbor = index + neighborOffsets[n];
+				counts[neighbor] += delta;
+				markDirty(neighbor);
+			}
+		} else {
+			addToNeighbors(y, x, delta);
+		}
+	}
+
+	/**
+	 * Adds to the counts around an edge cell and, on a torus, around each of
+	 * its ghost images beyond the opposite edges.
+	 */
+	private void addToNeighbors(int y, int x, int delta) {
+		boolean torus = _topology == Topology.TORUS;
+		int[] rows = _rowImages;
+		int[] columns = _columnImages;
+		int rowImages = 1;
+		int columnImages = 1;
+		rows[0] = y;
+		columns[0] = x;
+		if (torus) {
+			if (y == height - 1) {
+				rows[rowImages++] = -1;
+			}
+			if (y == 0) {
+				rows[rowImages++] = height;
+			}
+			if (x == width - 1) {
+				columns[columnImages++] = -1;
+			}
+			if (x == 0) {
+				columns[columnImages++] = width;
+			}
+		}
+
+		for (int r = 0; r < rowImages; r++) {
+			for (int c = 0; c < columnImages; c++) {
+				int image = index(rows[r], columns[c]);
+				for (int n = 0; n < 8; n++) {
+					int neighbor = image + neighborOffsets[n];
+					counts[neighbor] += delta;
+					markDirty(neighbor);
+				}
+			}
+		}
+	}
+
+	private void markDirty(int index) {
+		if (!_isDirty[index]) {
+			_isDirty[index] = true;
+			_dirty[_dirtyCount++] = index;
+		}
+	}
+
+	/**
+	 * Lists every cell of the board for the next generation.
+	 */
+	private void markAllDirty() {
+		_dirtyCount = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int index = index(y, x);
+				_isDirty[index] = true;
+				_dirty[_dirtyCount++] = index;
+			}
+		}
+	}
+}
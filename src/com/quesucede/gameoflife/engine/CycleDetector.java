@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Finds boards that have become empty, still or periodic.  The board is
+ * summarized by a Zobrist hash, the exclusive or of a random 64 bit key per
+ * living cell, which is updated from the cells each generation changed
+ * instead of being recomputed.  The hashes of the latest generations are
+ * kept, and a generation hashing like one of them repeats it.
+ *
+ * The keys are derived from the cell index by a mixing function rather
+ * than stored in a table, so large boards cost no memory.
+ */
+public final class CycleDetector {
+
+	// Longest period detected.
+	public static final int MAX_PERIOD = 64;
+
+	private final long[] _hashes = new long[MAX_PERIOD];
+	private final long[] _populations = new long[MAX_PERIOD];
+	private long _count;
+
+	private long _hash;
+	private long _population;
+	private boolean _valid;
+
+	// Copy of the board used to hash it from scratch.
+	private Frame _scratch;
+
+	/**
+	 * Forgets the generations seen so far, after the board was edited or
+	 * its rule changed.  The next update hashes the board from scratch.
+	 */
+	public void reset() {
+		_valid = false;
+		_count = 0;
+	}
+
+	/**
+	 * Records the generation just computed.
+	 *
+	 * @param engine - the engine, after computing the generation.
+	 * @param changes - the cells the generation changed.
+	 * @return the period the board repeats with, 1 for empty or still
+	 *          boards, or 0 if it does not repeat one of the latest
+	 *          MAX_PERIOD generations.
+	 */
+	public int update(LifeEngine engine, ChangeList changes) {
+		if (_valid) {
+			int[] born = changes.getBorn();
+			for (int i = 0; i < changes.getBornCount(); i++) {
+				_hash ^= key(born[i]);
+			}
+			int[] died = changes.getDied();
+			for (int i = 0; i < changes.getDiedCount(); i++) {
+				_hash ^= key(died[i]);
+			}
+			_population += changes.getBornCount() - changes.getDiedCount();
+		} else {
+			hashBoard(engine);
+		}
+
+		int period = 0;
+		for (int p = 1; p <= Math.min(_count, MAX_PERIOD); p++) {
+			int slot = (int) ((_count - p) % MAX_PERIOD);
+			if (_hashes[slot] == _hash && _populations[slot] == _population) {
+				period = p;
+				break;
+			}
+		}
+		int slot = (int) (_count % MAX_PERIOD);
+		_hashes[slot] = _hash;
+		_populations[slot] = _population;
+		_count++;
+		return period;
+	}
+
+	/**
+	 * Hashes every living cell of the board.
+	 */
+	private void hashBoard(LifeEngine engine) {
+		if (_scratch == null) {
+			_scratch = new Frame(engine.getHeight(), engine.getWidth());
+		}
+		_scratch.capture(engine);
+		int width = _scratch.getWidth();
+		_hash = 0;
+		_population = 0;
+		for (int y = 0; y < _scratch.getHeight(); y++) {
+			for (int i = 0; i < _scratch.getWordsPerRow(); i++) {
+				long word = _scratch.getWord(y, i);
+				while (word != 0) {
+					int x = (i << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+					_hash ^= key(y * width + x);
+					_population++;
+				}
+			}
+		}
+		_valid = true;
+	}
+
+	/**
+	 * @return the random key of the cell at an index, from the finalizer of
+	 *          the SplitMix64 generator.
+	 */
+	private static long key(int index) {
+		long z = (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Cells to set alive or dead together, such as the cells a finger crossed
+ * during one touch event.  A batch is filled on the UI thread and handed to
+ * Simulator.apply(), which sets all of its cells between two generations,
+ * so a generation never sees half of a stroke.  A batch must not be changed
+ * once handed over.
+ */
+public final class EditBatch {
+
+	private static final int INITIAL_CAPACITY = 32;
+
+	private final boolean alive;
+
+	// Rows and columns of the cells, as y,x pairs.
+	private int[] _cells = new int[2 * INITIAL_CAPACITY];
+	private int _count;
+
+	/**
+	 * Constructor for the EditBatch class, empty.
+	 *
+	 * @param alive - the state the cells are set to.
+	 */
+	public EditBatch(boolean alive) {
+		this.alive = alive;
+	}
+
+	/**
+	 * @return the state the cells are set to.
+	 */
+	public boolean isAlive() {
+		return alive;
+	}
+
+	/**
+	 * @return the number of cells in the batch.
+	 */
+	public int size() {
+		return _count;
+	}
+
+	/**
+	 * Adds a cell, unless it is the last one added.
+	 *
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 */
+	public void add(int y, int x) {
+		int end = 2 * _count;
+		if (_count > 0 && _cells[end - 2] == y && _cells[end - 1] == x) {
+			return;
+		}
+		if (end == _cells.length) {
+			int[] larger = new int[2 * _cells.length];
+			System.arraycopy(_cells, 0, larger, 0, end);
+			_cells = larger;
+		}
+		_cells[end] = y;
+		_cells[end + 1] = x;
+		_count++;
+	}
+
+	/**
+	 * Adds the cells of a line between two cells, both included, with no
+	 * gaps between consecutive cells.
+	 *
+	 * @param y0 - row of the first cell.
+	 * @param x0 - column of the first cell.
+	 * @param y1 - row of the last cell.
+	 * @param x1 - column of the last cell.
+	 */
+	public void addLine(int y0, int x0, int y1, int x1) {
+		int dx = Math.abs(x1 - x0);
+		int dy = -Math.abs(y1 - y0);
+		int stepX = (x0 < x1) ? 1 : -1;
+		int stepY = (y0 < y1) ? 1 : -1;
+		int error = dx + dy;
+		int x = x0;
+		int y = y0;
+		while (true) {
+			add(y, x);
+			if (x == x1 && y == y1) {
+				return;
+			}
+			int twice = 2 * error;
+			if (twice >= dy) {
+				error += dy;
+				x += stepX;
+			}
+			if (twice <= dx) {
+				error += dx;
+				y += stepY;
+			}
+		}
+	}
+
+	/**
+	 * Sets the cells of the batch that are on the board of an engine.
+	 *
+	 * @param engine - the engine to edit.
+	 */
+	void applyTo(LifeEngine engine) {
+		int height = engine.getHeight();
+		int width = engine.getWidth();
+		for (int i = 0; i < 2 * _count; i += 2) {
+			int y = _cells[i];
+			int x = _cells[i + 1];
+			if (y >= 0 && y < height && x >= 0 && x < width) {
+				engine.setAlive(y, x, alive);
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Creates simulation engines by name, for the settings screen and any other
+ * place where the engine is chosen at run time.
+ */
+public final class Engines {
+
+	// Names of the available engines.
+	public static final String BIT_GRID = "bitgrid";
+	public static final String HASH_LIFE = "hashlife";
+	public static final String COUNTING_GRID = "counting";
+	public static final String SPARSE_GRID = "sparse";
+
+	// Estimated bytes taken per cell of the board by each engine and the
+	// frames, history and renderer state that grow with the board.  The
+	// counting grid keeps a byte of state, a byte of count and two int
+	// lists per cell, and its frames carry the counts; the other engines
+	// pack their cells in bits.
+	private static final int BITS_BYTES_PER_CELL = 2;
+	private static final int COUNTING_BYTES_PER_CELL = 16;
+
+	private Engines() {
+	}
+
+	/**
+	 * Estimates the memory a board takes with the named engine, to size
+	 * boards that fit the memory of the device.
+	 *
+	 * @param name - one of the engine names above.
+	 * @return the estimated number of bytes per cell of the board.
+	 */
+	public static int getBytesPerCell(String name) {
+		return COUNTING_GRID.equals(name) ? COUNTING_BYTES_PER_CELL
+				: BITS_BYTES_PER_CELL;
+	}
+
+	/**
+	 * Creates an empty engine of the named type.
+	 *
+	 * @param name - one of the engine names above.
+	 * @param height - number of rows of cells on the board.
+	 * @param width - number of columns of cells on the board.
+	 * @return the new engine.
+	 * @throws IllegalArgumentException if there is no engine of that name.
+	 */
+	public static LifeEngine create(String name, int height, int width) {
+		if (BIT_GRID.equals(name)) {
+			return new BitGrid(height, width);
+		}
+		if (HASH_LIFE.equals(name)) {
+			return new HashLife(height, width);
+		}
+		if (COUNTING_GRID.equals(name)) {
+			return new CountingGrid(height, width);
+		}
+		if (SPARSE_GRID.equals(name)) {
+			return new SparseGrid(height, width);
+		}
+		throw new IllegalArgumentException("Unknown engine " + name + ".");
+	}
+}
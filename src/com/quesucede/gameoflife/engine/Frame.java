@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Snapshot of one generation of a board, bit-packed the same way as the rows
+ * of a BitGrid.  Frames are filled by the simulation thread and handed to
+ * the view through a FrameRing, which never refills a frame while the view
+ * may still be reading it, so to its readers a frame is immutable.
+ */
+public final class Frame {
+
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+
+	// Bit j of word i of row y is the cell at (y, 64 * i + j).
+	private final long[] cells;
+
+	// Neighbor counts indexed by y * width + x, when the engine keeps them.
+	private byte[] _counts;
+
+	private long generation;
+	private long population;
+
+	// Period of the cycle the board was found to repeat, or 0.
+	private int period;
+
+	// Edge behavior of the board, windows onto a plane count as bounded.
+	private Topology topology = Topology.TORUS;
+
+	// Rule the generation was computed with.
+	private Rule rule = Rule.CONWAY;
+
+	// Number of the frame among the ones published by its simulator.
+	private long _serial;
+
+	// Words holding every cell changed since the frame numbered
+	// _changesSince, or a count of -1 if they are not known.
+	private long _changesSince;
+	private int[] _changedWords;
+	private int _changedWordCount = -1;
+
+	// Tile populations of this generation, when the simulator keeps them.
+	private PopulationMipmap _mipmap;
+	private boolean _mipmapValid;
+
+	/**
+	 * Constructor for the Frame class, allocates an empty frame.
+	 *
+	 * @param height - number of rows of cells.
+	 * @param width - number of columns of cells.
+	 */
+	public Frame(int height, int width) {
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) / 64;
+		this.cells = new long[height * wordsPerRow];
+	}
+
+	/**
+	 * Copies the current generation of an engine of the same size into this
+	 * frame.  Must only be called by the thread stepping the engine.
+	 *
+	 * @param engine - the engine to copy.
+	 */
+	void capture(LifeEngine engine) {
+		if (engine instanceof BitGrid) {
+			((BitGrid) engine).copyCells(cells);
+		} else if (engine instanceof CountingGrid) {
+			((CountingGrid) engine).copyCells(cells);
+			if (_counts == null) {
+				_counts = new byte[height * width];
+			}
+			((CountingGrid) engine).copyNeighborCounts(_counts);
+		} else if (engine instanceof SparseGrid) {
+			((SparseGrid) engine).copyCells(cells);
+		} else if (engine instanceof HashLife) {
+			((HashLife) engine).copyCells(cells);
+		} else {
+			for (int y = 0; y < height; y++) {
+				int row = y * wordsPerRow;
+				for (int i = 0; i < wordsPerRow; i++) {
+					cells[row + i] = 0;
+				}
+				for (int x = 0; x < width; x++) {
+					if (engine.isAlive(y, x)) {
+						cells[row + (x >>> 6)] |= 1L << x;
+					}
+				}
+			}
+		}
+		this.generation = engine.getGeneration();
+		this.population = engine.getPopulation();
+		this.topology = (engine instanceof FiniteEngine)
+				? ((FiniteEngine) engine).getTopology() : Topology.BOUNDED;
+		this.rule = engine.getRule();
+		this.period = 0;
+		this._changedWordCount = -1;
+		this._mipmapValid = false;
+	}
+
+	/**
+	 * Copies another frame of the same size into this one.
+	 *
+	 * @param source - the frame to copy.
+	 */
+	void copyFrom(Frame source) {
+		System.arraycopy(source.cells, 0, cells, 0, cells.length);
+		if (source._counts == null) {
+			_counts = null;
+		} else {
+			if (_counts == null) {
+				_counts = new byte[height * width];
+			}
+			System.arraycopy(source._counts, 0, _counts, 0, _counts.length);
+		}
+		this.generation = source.generation;
+		this.population = source.population;
+		this.topology = source.topology;
+		this.rule = source.rule;
+		this.period = source.period;
+		this._serial = source._serial;
+		this._changedWordCount = -1;
+		this._mipmapValid = false;
+	}
+
+	/**
+	 * @param other - a frame of the same size.
+	 * @return true if both frames hold the same living cells.
+	 */
+	boolean hasSameCells(Frame other) {
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] != other.cells[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Numbers the frame and lists the words changed since an earlier one.
+	 *
+	 * @param serial - number of the frame.
+	 * @param since - number of the earlier frame.
+	 * @param changes - the words changed since then.
+	 */
+	void setChanges(long serial, long since, ChangedWords changes) {
+		this._serial = serial;
+		this._changesSince = since;
+		if (!changes.isValid()) {
+			_changedWordCount = -1;
+			return;
+		}
+		int count = changes.getCount();
+		if (_changedWords == null || _changedWords.length < count) {
+			_changedWords = new int[Math.max(count, 64)];
+		}
+		System.arraycopy(changes.getWords(), 0, _changedWords, 0, count);
+		_changedWordCount = count;
+	}
+
+	/**
+	 * @return the number of the frame among the ones published by its
+	 *          simulator, increasing with every frame.
+	 */
+	public long getSerial() {
+		return _serial;
+	}
+
+	/**
+	 * @return the number of the frame the changed words are listed since.
+	 */
+	public long getChangesSince() {
+		return _changesSince;
+	}
+
+	/**
+	 * @return the number of words holding cells changed since the frame
+	 *          numbered getChangesSince(), or -1 if they are not known.
+	 */
+	public int getChangedWordCount() {
+		return _changedWordCount;
+	}
+
+	/**
+	 * @param k - index of a changed word, below getChangedWordCount().
+	 * @return the index y * getWordsPerRow() + i of the changed word.
+	 */
+	public int getChangedWord(int k) {
+		return _changedWords[k];
+	}
+
+	/**
+	 * @return the tile populations of this frame, to be filled in by the
+	 *          simulator.
+	 */
+	PopulationMipmap mipmap() {
+		if (_mipmap == null) {
+			_mipmap = new PopulationMipmap(height, width);
+		}
+		_mipmapValid = true;
+		return _mipmap;
+	}
+
+	void setGeneration(long generation) {
+		this.generation = generation;
+	}
+
+	void setPeriod(int period) {
+		this.period = period;
+	}
+
+	/**
+	 * @return the height of the board in cells
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return the width of the board in cells
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the generation this frame shows.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return the number of living cells on the whole board.
+	 */
+	public long getPopulation() {
+		return population;
+	}
+
+	/**
+	 * @return how the edges of the board behave.
+	 */
+	public Topology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * @return the rule the generation was computed with.
+	 */
+	public Rule getRule() {
+		return rule;
+	}
+
+	/**
+	 * @return the period of the cycle the board is replayed from, 1 for an
+	 *          empty or still board, or 0 while it is being computed.
+	 */
+	public int getPeriod() {
+		return period;
+	}
+
+	/**
+	 * @return the populations of the tiles of the board at several levels
+	 *          of detail, or null if the simulator does not keep them.
+	 */
+	public PopulationMipmap getMipmap() {
+		return _mipmapValid ? _mipmap : null;
+	}
+
+	/**
+	 * @return the number of longs holding a row of cells.
+	 */
+	public int getWordsPerRow() {
+		return wordsPerRow;
+	}
+
+	/**
+	 * @param y - row of cells.
+	 * @param i - index of the word within the row.
+	 * @return 64 cells of the row, the first one in the lowest bit.
+	 */
+	public long getWord(int y, int i) {
+		return cells[y * wordsPerRow + i];
+	}
+
+	/**
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @return true if the cell is alive.
+	 */
+	public boolean isAlive(int y, int x) {
+		return ((cells[y * wordsPerRow + (x >>> 6)] >>> x) & 1L) != 0;
+	}
+
+	/**
+	 * Counts the living neighbors of a cell, following the topology at the
+	 * edges of the frame.  Frames of engines that keep neighbor counts just
+	 * read the copied count.
+	 *
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @return the number of living neighbors.
+	 */
+	public int countNeighbors(int y, int x) {
+		if (_counts != null) {
+			return _counts[y * width + x];
+		}
+		int total = isAlive(y, x) ? -1 : 0;
+		boolean interior = y > 0 && y < height - 1 && x > 0 && x < width - 1;
+		for (int h = -1; h <= +1; h++) {
+			for (int w = -1; w <= +1; w++) {
+				if (interior ? isAlive(y + h, x + w)
+						: isNeighborAlive(y + h, x + w)) {
+					total++;
+				}
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Reads a cell that may lie one step beyond the edges of the frame.
+	 */
+	private boolean isNeighborAlive(int y, int x) {
+		if (y < 0 || y >= height || x < 0 || x >= width) {
+			if (topology == Topology.BOUNDED) {
+				return false;
+			}
+			y = (y < 0) ? y + height : (y >= height) ? y - height : y;
+			x = (x < 0) ? x + width : (x >= width) ? x - width : x;
+		}
+		return isAlive(y, x);
+	}
+}
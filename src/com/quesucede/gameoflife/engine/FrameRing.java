@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Bounded ring of frames shared by the simulation thread, which fills them,
+ * and the view, which draws the latest one.  The producer is always given a
+ * frame that is neither the latest published one nor the one the consumer
+ * holds, so neither side ever waits for the other and frames the consumer
+ * was too slow to see are simply overwritten.
+ */
+public class FrameRing {
+
+	private final Frame[] frames;
+
+	// Index the search for the next free frame starts from.
+	private int _nextIndex;
+
+	private Frame _latest;
+	private Frame _held;
+
+	/**
+	 * Constructor for the FrameRing class.
+	 *
+	 * @param capacity - number of frames, at least three.
+	 * @param height - number of rows of cells in a frame.
+	 * @param width - number of columns of cells in a frame.
+	 */
+	public FrameRing(int capacity, int height, int width) {
+		if (capacity < 3) {
+			throw new IllegalArgumentException("A frame ring needs at least "
+					+ "three frames, not " + capacity + ".");
+		}
+		this.frames = new Frame[capacity];
+		for (int i = 0; i < capacity; i++) {
+			frames[i] = new Frame(height, width);
+		}
+	}
+
+	/**
+	 * Gives the producer a frame to fill.  It is not visible to the consumer
+	 * until it is published.
+	 *
+	 * @return a frame nobody is reading.
+	 */
+	synchronized Frame acquireForWrite() {
+		while (true) {
+			Frame frame = frames[_nextIndex];
+			_nextIndex = (_nextIndex + 1) % frames.length;
+			if (frame != _latest && frame != _held) {
+				return frame;
+			}
+		}
+	}
+
+	/**
+	 * Makes a filled frame the latest one.
+	 *
+	 * @param frame - the frame returned by acquireForWrite().
+	 */
+	synchronized void publish(Frame frame) {
+		_latest = frame;
+	}
+
+	/**
+	 * Hands the consumer the latest published frame, which stays unchanged
+	 * until the consumer calls this method again.  The frame held before
+	 * is released back to the producer.
+	 *
+	 * @return the latest frame, or null if none was published yet.
+	 */
+	public synchronized Frame acquireLatest() {
+		_held = _latest;
+		return _held;
+	}
+
+	/**
+	 * @return the number of the frame the consumer holds, or -1 if it holds
+	 *          none.
+	 */
+	synchronized long getHeldSerial() {
+		return (_held == null) ? -1 : _held.getSerial();
+	}
+
+	/**
+	 * Copies the latest published frame for a reader other than the
+	 * consumer, leaving the frame the consumer holds alone.  The producer
+	 * waits for a new frame while the copy is made.
+	 *
+	 * @return a copy of the latest frame, or null if none was published yet.
+	 */
+	public synchronized Frame copyLatest() {
+		if (_latest == null) {
+			return null;
+		}
+		Frame copy = new Frame(_latest.getHeight(), _latest.getWidth());
+		copy.copyFrom(_latest);
+		return copy;
+	}
+}
@@ -0,0 +1,678 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Hashlife engine.  The universe is an unbounded plane stored as a quadtree
+ * whose nodes are canonicalized in a hash table, so identical regions of the
+ * board are stored once no matter how often they repeat.  Every node also
+ * memoizes its own future: the center half of a node of level k, advanced
+ * by up to 2^(k-2) generations.  Together these let the engine advance
+ * large, regular patterns by 2^k generations in a single call.
+ *
+ * The board coordinates of the LifeEngine methods are a window of width by
+ * height cells onto the plane, whose top left corner is at the origin set
+ * with setOrigin().  Rules where cells are born with zero neighbors (B0) are
+ * not supported, since they would fill the infinite plane.
+ */
+public class HashLife implements PlaneEngine {
+
+	// Largest level the root may grow to, so that coordinates fit a long.
+	private static final int MAX_LEVEL = 62;
+
+	// Initial number of buckets in the node table, always a power of two.
+	private static final int INITIAL_TABLE_SIZE = 1 << 12;
+
+	// Default number of nodes after which unreachable ones are collected.
+	private static final int DEFAULT_MAX_NODES = 1 << 21;
+
+	// Sides of a node, for measuring the bounds of the living cells.
+	private static final int TOP = 0;
+	private static final int LEFT = 1;
+	private static final int BOTTOM = 2;
+	private static final int RIGHT = 3;
+
+	/**
+	 * Quadtree node.  A node of level k covers a square of 2^k by 2^k cells
+	 * split into four children of level k-1; the two level 0 nodes are the
+	 * single dead and alive cells.
+	 */
+	static final class Node {
+		final int level;
+		final Node nw, ne, sw, se;
+		final long population;
+		final int hash;
+
+		// Next node in the same hash table bucket.
+		Node nextInBucket;
+
+		// Memoized center of this node advanced by 2^resultExponent
+		// generations, valid while resultExponent is not -1.
+		Node result;
+		int resultExponent = -1;
+
+		Node(int level, Node nw, Node ne, Node sw, Node se, long population,
+				int hash) {
+			this.level = level;
+			this.nw = nw;
+			this.ne = ne;
+			this.sw = sw;
+			this.se = se;
+			this.population = population;
+			this.hash = hash;
+		}
+	}
+
+	// The single dead and alive cells.
+	private static final Node DEAD = new Node(0, null, null, null, null, 0, 0);
+	private static final Node ALIVE = new Node(0, null, null, null, null, 1,
+			1);
+
+	// Size of the window used by the LifeEngine methods.
+	private final int width;
+	private final int height;
+
+	// Plane coordinates of the top left corner of the window.
+	private long _originY;
+	private long _originX;
+
+	// Canonical node table.
+	private Node[] _table = new Node[INITIAL_TABLE_SIZE];
+	private int _nodeCount;
+	private int _maxNodes = DEFAULT_MAX_NODES;
+
+	// Canonical empty node of each level, built lazily.
+	private final Node[] _empty = new Node[MAX_LEVEL + 1];
+
+	// The whole universe, centered on plane coordinate (0,0).
+	private Node _root;
+
+	private Rule _rule = Rule.CONWAY;
+	private long _generation;
+
+	/**
+	 * Constructor for the HashLife class, creates an empty universe viewed
+	 * through a window of the given size.
+	 *
+	 * @param height - number of rows of cells in the window.
+	 * @param width - number of columns of cells in the window.
+	 */
+	public HashLife(int height, int width) {
+		this.width = width;
+		this.height = height;
+		this._root = emptyNode(3);
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public void setOrigin(long y, long x) {
+		this._originY = y;
+		this._originX = x;
+	}
+
+	public long getOriginY() {
+		return _originY;
+	}
+
+	public long getOriginX() {
+		return _originX;
+	}
+
+	/**
+	 * Limits how many nodes are kept before the ones no longer reachable
+	 * from the universe are dropped along with all memoized results.
+	 *
+	 * @param maxNodes - node count that triggers a collection.
+	 */
+	public void setMaxNodes(int maxNodes) {
+		this._maxNodes = maxNodes;
+	}
+
+	public boolean isAlive(int y, int x) {
+		return isAlive(_originY + y, _originX + x);
+	}
+
+	public void setAlive(int y, int x, boolean alive) {
+		setAlive(_originY + y, _originX + x, alive);
+	}
+
+	/**
+	 * @param y - plane row of the cell.
+	 * @param x - plane column of the cell.
+	 * @return true if the cell is alive.
+	 */
+	public boolean isAlive(long y, long x) {
+		Node node = _root;
+		long half = 1L << (node.level - 1);
+		if (y < -half || y >= half || x < -half || x >= half) {
+			return false;
+		}
+		// Coordinates relative to the top left corner of the node.
+		y += half;
+		x += half;
+		while (node.level > 0) {
+			if (node.population == 0) {
+				return false;
+			}
+			long size = 1L << (node.level - 1);
+			if (y < size) {
+				node = (x < size) ? node.nw : node.ne;
+			} else {
+				node = (x < size) ? node.sw : node.se;
+				y -= size;
+			}
+			if (x >= size) {
+				x -= size;
+			}
+		}
+		return node == ALIVE;
+	}
+
+	/**
+	 * Sets the cell at plane coordinates (y,x) to alive or dead, growing the
+	 * universe if the cell lies outside of it.
+	 *
+	 * @param y - plane row of the cell.
+	 * @param x - plane column of the cell.
+	 * @param alive - the new state of the cell.
+	 */
+	public void setAlive(long y, long x, boolean alive) {
+		while (!contains(_root, y, x)) {
+			if (!alive) {
+				return;
+			}
+			_root = expand(_root);
+		}
+		long half = 1L << (_root.level - 1);
+		_root = set(_root, y + half, x + half, alive);
+	}
+
+	public boolean getBounds(long[] bounds) {
+		if (_root.population == 0) {
+			return false;
+		}
+		long half = 1L << (_root.level - 1);
+		bounds[0] = -half + edge(_root, TOP, new IdentityHashMap<Node, Long>());
+		bounds[1] = -half + edge(_root, LEFT, new IdentityHashMap<Node, Long>());
+		bounds[2] = half - 1
+				- edge(_root, BOTTOM, new IdentityHashMap<Node, Long>());
+		bounds[3] = half - 1
+				- edge(_root, RIGHT, new IdentityHashMap<Node, Long>());
+		return true;
+	}
+
+	public void clear() {
+		_table = new Node[INITIAL_TABLE_SIZE];
+		_nodeCount = 0;
+		for (int level = 0; level < _empty.length; level++) {
+			_empty[level] = null;
+		}
+		_root = emptyNode(3);
+	}
+
+	public int countNeighbors(int y, int x) {
+		long planeY = _originY + y;
+		long planeX = _originX + x;
+		int total = isAlive(planeY, planeX) ? -1 : 0;
+		for (int h = -1; h <= +1; h++) {
+			for (int w = -1; w <= +1; w++) {
+				if (isAlive(planeY + h, planeX + w)) {
+					total++;
+				}
+			}
+		}
+		return total;
+	}
+
+	public long getPopulation() {
+		return _root.population;
+	}
+
+	public long getGeneration() {
+		return _generation;
+	}
+
+	public Rule getRule() {
+		return _rule;
+	}
+
+	/**
+	 * Changes the rule, forgetting every memoized result.
+	 *
+	 * @throws IllegalArgumentException if the rule is a B0 rule.
+	 */
+	public void setRule(Rule rule) {
+		if ((rule.getBirthMask() & 1) != 0) {
+			throw new IllegalArgumentException("HashLife does not support "
+					+ "rule " + rule + " with births on zero neighbors.");
+		}
+		this._rule = rule;
+		for (int i = 0; i < _table.length; i++) {
+			for (Node node = _table[i]; node != null;
+					node = node.nextInBucket) {
+				node.result = null;
+				node.resultExponent = -1;
+			}
+		}
+	}
+
+	public void step() {
+		advance(0);
+	}
+
+	/**
+	 * Advances the universe by 2^exponent generations at once.
+	 *
+	 * @param exponent - base two logarithm of the number of generations.
+	 */
+	public void advance(int exponent) {
+		if (exponent < 0 || exponent > MAX_LEVEL - 3) {
+			throw new IllegalArgumentException("Cannot advance by 2^"
+					+ exponent + " generations.");
+		}
+		if (_root.population != 0) {
+			/* Grow the universe until it can be advanced that far and all
+			 * live cells are inside its center quarter, so nothing can
+			 * escape the half that is returned. */
+			while (_root.level < exponent + 3
+					|| centeredSubnode(centeredSubnode(_root)).population
+						!= _root.population) {
+				if (_root.level >= MAX_LEVEL) {
+					throw new IllegalStateException("Pattern has grown "
+							+ "beyond the largest supported universe.");
+				}
+				_root = expand(_root);
+			}
+			_root = result(_root, exponent);
+		}
+		_generation += 1L << exponent;
+
+		if (_nodeCount > _maxNodes) {
+			collect();
+		}
+	}
+
+	/**
+	 * Advances the universe by any number of generations, as a sequence of
+	 * power of two jumps.
+	 *
+	 * @param generations - number of generations to advance.
+	 */
+	public void advanceBy(long generations) {
+		for (int exponent = 0; generations != 0; exponent++) {
+			if ((generations & 1) != 0) {
+				advance(exponent);
+			}
+			generations >>>= 1;
+		}
+	}
+
+	/**
+	 * Copies the living cells inside the window into an array laid out like
+	 * the rows of a BitGrid, walking down the quadtree only into the nodes
+	 * that hold living cells and overlap the window.
+	 *
+	 * @param destination - array of at least height * ((width + 63) / 64)
+	 *          longs.
+	 */
+	public void copyCells(long[] destination) {
+		int wordsPerRow = (width + 63) / 64;
+		for (int i = 0; i < height * wordsPerRow; i++) {
+			destination[i] = 0;
+		}
+		long half = 1L << (_root.level - 1);
+		copyCells(_root, -half, -half, destination, wordsPerRow);
+	}
+
+	/**
+	 * Copies the living cells of a node that fall inside the window.
+	 *
+	 * @param top - plane row of the top of the node.
+	 * @param left - plane column of the left of the node.
+	 */
+	private void copyCells(Node node, long top, long left,
+			long[] destination, int wordsPerRow) {
+		if (node.population == 0) {
+			return;
+		}
+		long size = 1L << node.level;
+		if (top >= _originY + height || top + size <= _originY
+				|| left >= _originX + width || left + size <= _originX) {
+			return;
+		}
+		if (node.level == 0) {
+			int y = (int) (top - _originY);
+			int x = (int) (left - _originX);
+			destination[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+			return;
+		}
+		long half = size >>> 1;
+		copyCells(node.nw, top, left, destination, wordsPerRow);
+		copyCells(node.ne, top, left + half, destination, wordsPerRow);
+		copyCells(node.sw, top + half, left, destination, wordsPerRow);
+		copyCells(node.se, top + half, left + half, destination,
+				wordsPerRow);
+	}
+
+	/**
+	 * Measures how far the living cells of a node lie from one of its
+	 * sides.  Nodes are shared, so every distinct node is measured once.
+	 *
+	 * @param node - a node holding living cells.
+	 * @param side - TOP, LEFT, BOTTOM or RIGHT.
+	 * @param distances - distances of the nodes measured so far.
+	 * @return the number of empty rows or columns along the side.
+	 */
+	private static long edge(Node node, int side, Map<Node, Long> distances) {
+		if (node.level == 0) {
+			return 0;
+		}
+		Long known = distances.get(node);
+		if (known != null) {
+			return known.longValue();
+		}
+		// The children along the side, then the ones across from it.
+		Node near1 = (side == BOTTOM || side == RIGHT) ? node.se : node.nw;
+		Node near2 = (side == TOP) ? node.ne : (side == LEFT) ? node.sw
+				: (side == BOTTOM) ? node.sw : node.ne;
+		Node far1 = (side == BOTTOM || side == RIGHT) ? node.nw : node.se;
+		Node far2 = (side == TOP) ? node.sw : (side == LEFT) ? node.ne
+				: (side == BOTTOM) ? node.ne : node.sw;
+		long distance;
+		if (near1.population != 0 || near2.population != 0) {
+			distance = nearest(near1, near2, side, distances);
+		} else {
+			distance = (1L << (node.level - 1))
+					+ nearest(far1, far2, side, distances);
+		}
+		distances.put(node, Long.valueOf(distance));
+		return distance;
+	}
+
+	private static long nearest(Node a, Node b, int side,
+			Map<Node, Long> distances) {
+		long distance = Long.MAX_VALUE;
+		if (a.population != 0) {
+			distance = edge(a, side, distances);
+		}
+		if (b.population != 0) {
+			distance = Math.min(distance, edge(b, side, distances));
+		}
+		return distance;
+	}
+
+	/**
+	 * @return true if the plane coordinates lie inside the node at the root.
+	 */
+	private static boolean contains(Node root, long y, long x) {
+		long half = 1L << (root.level - 1);
+		return y >= -half && y < half && x >= -half && x < half;
+	}
+
+	/**
+	 * Returns the node with one cell changed.
+	 *
+	 * @param y - row relative to the top of the node.
+	 * @param x - column relative to the left of the node.
+	 */
+	private Node set(Node node, long y, long x, boolean alive) {
+		if (node.level == 0) {
+			return alive ? ALIVE : DEAD;
+		}
+		long size = 1L << (node.level - 1);
+		if (y < size) {
+			if (x < size) {
+				return join(set(node.nw, y, x, alive), node.ne, node.sw,
+						node.se);
+			}
+			return join(node.nw, set(node.ne, y, x - size, alive), node.sw,
+					node.se);
+		}
+		if (x < size) {
+			return join(node.nw, node.ne, set(node.sw, y - size, x, alive),
+					node.se);
+		}
+		return join(node.nw, node.ne, node.sw,
+				set(node.se, y - size, x - size, alive));
+	}
+
+	/**
+	 * Looks up the canonical node with the given children, creating it if
+	 * it does not exist yet.
+	 */
+	private Node join(Node nw, Node ne, Node sw, Node se) {
+		int hash = ((nw.hash * 31 + ne.hash) * 31 + sw.hash) * 31 + se.hash
+				+ nw.level;
+		hash ^= hash >>> 16;
+		int bucket = hash & (_table.length - 1);
+		for (Node node = _table[bucket]; node != null;
+				node = node.nextInBucket) {
+			if (node.nw == nw && node.ne == ne && node.sw == sw
+					&& node.se == se) {
+				return node;
+			}
+		}
+		Node node = new Node(nw.level + 1, nw, ne, sw, se, nw.population
+				+ ne.population + sw.population + se.population, hash);
+		insert(node);
+		return node;
+	}
+
+	/**
+	 * Adds a node to the table, growing it when it gets too full.
+	 */
+	private void insert(Node node) {
+		if (_nodeCount >= _table.length - (_table.length >>> 2)) {
+			Node[] old = _table;
+			_table = new Node[old.length << 1];
+			for (int i = 0; i < old.length; i++) {
+				Node entry = old[i];
+				while (entry != null) {
+					Node next = entry.nextInBucket;
+					int bucket = entry.hash & (_table.length - 1);
+					entry.nextInBucket = _table[bucket];
+					_table[bucket] = entry;
+					entry = next;
+				}
+			}
+		}
+		int bucket = node.hash & (_table.length - 1);
+		node.nextInBucket = _table[bucket];
+		_table[bucket] = node;
+		_nodeCount++;
+	}
+
+	/**
+	 * @return the canonical node of the given level with every cell dead.
+	 */
+	private Node emptyNode(int level) {
+		if (level == 0) {
+			return DEAD;
+		}
+		Node node = _empty[level];
+		if (node == null) {
+			Node child = emptyNode(level - 1);
+			node = join(child, child, child, child);
+			_empty[level] = node;
+		}
+		return node;
+	}
+
+	/**
+	 * @return a node one level up with the given node at its center.
+	 */
+	private Node expand(Node node) {
+		Node border = emptyNode(node.level - 1);
+		return join(join(border, border, border, node.nw),
+				join(border, border, node.ne, border),
+				join(border, node.sw, border, border),
+				join(node.se, border, border, border));
+	}
+
+	/**
+	 * @return the center half of the node, one level down.
+	 */
+	private Node centeredSubnode(Node node) {
+		return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+	}
+
+	/**
+	 * Computes the center half of a node of level k advanced by
+	 * 2^min(exponent, k-2) generations, memoizing it in the node.
+	 */
+	private Node result(Node node, int exponent) {
+		int level = node.level;
+		int effective = Math.min(exponent, level - 2);
+		if (node.resultExponent == effective) {
+			return node.result;
+		}
+
+		Node result;
+		if (node.population == 0) {
+			result = emptyNode(level - 1);
+		} else if (level == 2) {
+			result = baseResult(node);
+		} else {
+			// The nine overlapping subnodes of level k-1.
+			Node n00 = node.nw;
+			Node n01 = join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw);
+			Node n02 = node.ne;
+			Node n10 = join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne);
+			Node n11 = centeredSubnode(node);
+			Node n12 = join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne);
+			Node n20 = node.sw;
+			Node n21 = join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw);
+			Node n22 = node.se;
+
+			/* At full speed both halves of the jump advance the pattern,
+			 * otherwise the first half only re-centers it. */
+			boolean fullSpeed = effective == level - 2;
+			Node r00 = fullSpeed ? result(n00, exponent) : centeredSubnode(n00);
+			Node r01 = fullSpeed ? result(n01, exponent) : centeredSubnode(n01);
+			Node r02 = fullSpeed ? result(n02, exponent) : centeredSubnode(n02);
+			Node r10 = fullSpeed ? result(n10, exponent) : centeredSubnode(n10);
+			Node r11 = fullSpeed ? result(n11, exponent) : centeredSubnode(n11);
+			Node r12 = fullSpeed ? result(n12, exponent) : centeredSubnode(n12);
+			Node r20 = fullSpeed ? result(n20, exponent) : centeredSubnode(n20);
+			Node r21 = fullSpeed ? result(n21, exponent) : centeredSubnode(n21);
+			Node r22 = fullSpeed ? result(n22, exponent) : centeredSubnode(n22);
+
+			result = join(result(join(r00, r01, r10, r11), exponent),
+					result(join(r01, r02, r11, r12), exponent),
+					result(join(r10, r11, r20, r21), exponent),
+					result(join(r11, r12, r21, r22), exponent));
+		}
+		node.result = result;
+		node.resultExponent = effective;
+		return result;
+	}
+
+	/**
+	 * Computes the center 2x2 cells of a 4x4 node one generation ahead.
+	 */
+	private Node baseResult(Node node) {
+		// Bit (4 * row + column) holds the cell at (row, column).
+		int cells = 0;
+		for (int y = 0; y < 4; y++) {
+			for (int x = 0; x < 4; x++) {
+				Node quadrant = (y < 2) ? ((x < 2) ? node.nw : node.ne)
+						: ((x < 2) ? node.sw : node.se);
+				Node row = ((y & 1) == 0) ? ((x & 1) == 0 ? quadrant.nw
+						: quadrant.ne) : ((x & 1) == 0 ? quadrant.sw
+						: quadrant.se);
+				if (row == ALIVE) {
+					cells |= 1 << (4 * y + x);
+				}
+			}
+		}
+		return join(nextCell(cells, 1, 1), nextCell(cells, 1, 2),
+				nextCell(cells, 2, 1), nextCell(cells, 2, 2));
+	}
+
+	/**
+	 * @return the next state of the cell at (y,x) in a 4x4 block of cells.
+	 */
+	private Node nextCell(int cells, int y, int x) {
+		int neighbors = 0;
+		for (int h = -1; h <= +1; h++) {
+			for (int w = -1; w <= +1; w++) {
+				if ((h != 0 || w != 0)
+						&& ((cells >>> (4 * (y + h) + x + w)) & 1) != 0) {
+					neighbors++;
+				}
+			}
+		}
+		boolean alive = ((cells >>> (4 * y + x)) & 1) != 0;
+		return _rule.nextState(alive, neighbors) ? ALIVE : DEAD;
+	}
+
+	/**
+	 * Drops every node that is no longer reachable from the universe, along
+	 * with all memoized results, by rebuilding the table from the root.
+	 */
+	private void collect() {
+		_table = new Node[INITIAL_TABLE_SIZE];
+		_nodeCount = 0;
+		for (int level = 1; level < _empty.length; level++) {
+			if (_empty[level] != null) {
+				keep(_empty[level]);
+			}
+		}
+		keep(_root);
+	}
+
+	/**
+	 * Re-inserts a node and its descendants into the rebuilt table.
+	 */
+	private void keep(Node node) {
+		if (node.level == 0) {
+			return;
+		}
+		int bucket = node.hash & (_table.length - 1);
+		for (Node entry = _table[bucket]; entry != null;
+				entry = entry.nextInBucket) {
+			if (entry == node) {
+				return;
+			}
+		}
+		keep(node.nw);
+		keep(node.ne);
+		keep(node.sw);
+		keep(node.se);
+		node.result = null;
+		node.resultExponent = -1;
+		insert(node);
+	}
+}
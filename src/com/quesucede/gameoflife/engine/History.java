@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Bounded record of the latest states of a board, to step back and scrub
+ * through past generations without computing them again.  Every state is
+ * stored as the exclusive or of its words with the previous state, which
+ * only holds the few words a generation changed and can be walked in both
+ * directions.  Every KEYFRAME_INTERVAL states, or sooner once the deltas
+ * since the last keyframe outweigh one, the whole board is stored as well,
+ * so that reaching any state never takes more than a short walk from the
+ * current one or from a keyframe.  The oldest states are dropped once the
+ * record outgrows its budget in bytes.
+ *
+ * The history holds a copy of the board at the current state.  Recording
+ * a state after stepping back drops the states that came after it.
+ * Several states may share a generation, when the board was edited between
+ * two generations; seeking to a generation finds the last of them.  A board
+ * loaded at an earlier generation than the current one starts the record
+ * over.
+ *
+ * Only finite boards are recorded.  The window of a plane engine is not
+ * the whole board, and bringing it back would lose the cells outside it.
+ */
+public final class History {
+
+	// Most states between two keyframes.
+	private static final int KEYFRAME_INTERVAL = 64;
+
+	// Estimated bytes taken by an entry besides its arrays.
+	private static final int ENTRY_OVERHEAD = 64;
+
+	private static final int[] NO_INDICES = new int[0];
+	private static final long[] NO_WORDS = new long[0];
+
+	/**
+	 * A recorded state.  The words are either listed with their indices,
+	 * or all present when the indices are null.
+	 */
+	private static final class Entry {
+		long generation;
+
+		// Exclusive or of the state with the previous one.
+		int[] deltaIndices;
+		long[] deltaWords;
+
+		// The whole state for keyframes, or null.
+		int[] keyIndices;
+		long[] keyWords;
+
+		int bytes;
+	}
+
+	private final int width;
+	private final int wordsPerRow;
+
+	// The board at the current state.
+	private final long[] _board;
+
+	// Words of the board changed by the delta being built or the states
+	// walked by a seek, and their indices.
+	private final long[] _diff;
+	private final boolean[] _isTouched;
+	private final int[] _touched;
+	private int _touchedCount;
+
+	// Number of non-zero words of the board, which sizes its keyframe.
+	private int _nonZero;
+
+	// Whether a seek loaded a keyframe, so that the whole board changed.
+	private boolean _reloaded;
+
+	// Copy of an engine to compare with the board.
+	private final Frame _scratch;
+
+	// Ring of states, the oldest one at _head, numbered from _first.
+	private Entry[] _entries = new Entry[256];
+	private int _head;
+	private int _count;
+	private long _first;
+
+	// Number of the current state.
+	private long _position;
+
+	// Number of the last keyframe and bytes of the deltas recorded since.
+	private long _lastKeyframe;
+	private long _bytesSinceKeyframe;
+
+	private long _budget;
+	private long _bytes;
+
+	/**
+	 * Constructor for the History class, whose first state is the current
+	 * generation of an engine.
+	 *
+	 * @param engine - the finite engine whose generations will be recorded.
+	 * @param generation - the generation the engine shows.
+	 * @param budget - most bytes taken by the recorded states.
+	 */
+	public History(LifeEngine engine, long generation, long budget) {
+		if (!(engine instanceof FiniteEngine)) {
+			throw new IllegalArgumentException("Only the generations of a "
+					+ "finite board can be recorded.");
+		}
+		this.width = engine.getWidth();
+		this.wordsPerRow = (width + 63) / 64;
+		int words = engine.getHeight() * wordsPerRow;
+		this._board = new long[words];
+		this._diff = new long[words];
+		this._isTouched = new boolean[words];
+		this._touched = new int[words];
+		this._scratch = new Frame(engine.getHeight(), width);
+		this._budget = budget;
+
+		Entry entry = new Entry();
+		entry.generation = generation;
+		entry.deltaIndices = NO_INDICES;
+		entry.deltaWords = NO_WORDS;
+		_scratch.capture(engine);
+		for (int y = 0; y < engine.getHeight(); y++) {
+			for (int i = 0; i < wordsPerRow; i++) {
+				_board[y * wordsPerRow + i] = _scratch.getWord(y, i);
+			}
+		}
+		_nonZero = countNonZero();
+		setKeyframe(entry);
+		_entries[0] = entry;
+		_count = 1;
+		_bytes = entry.bytes;
+	}
+
+	/**
+	 * @return the generation of the oldest recorded state.
+	 */
+	public long getFirstGeneration() {
+		return entry(_first).generation;
+	}
+
+	/**
+	 * @return the generation of the newest recorded state.
+	 */
+	public long getLastGeneration() {
+		return entry(_first + _count - 1).generation;
+	}
+
+	/**
+	 * @return the generation of the current state.
+	 */
+	public long getGeneration() {
+		return entry(_position).generation;
+	}
+
+	/**
+	 * @return the number of recorded states.
+	 */
+	public int getCount() {
+		return _count;
+	}
+
+	/**
+	 * @return the estimated number of bytes taken by the recorded states.
+	 */
+	public long getByteCount() {
+		return _bytes;
+	}
+
+	/**
+	 * @param budget - most bytes taken by the recorded states, the oldest
+	 *            of which are dropped to fit.
+	 */
+	public void setBudget(long budget) {
+		this._budget = budget;
+		evict();
+	}
+
+	/**
+	 * Records the generation an engine just computed from the cells it
+	 * changed.
+	 *
+	 * @param changes - the cells the generation changed.
+	 * @param generation - the generation computed.
+	 */
+	void record(ChangeList changes, long generation) {
+		addCells(changes.getBorn(), changes.getBornCount());
+		addCells(changes.getDied(), changes.getDiedCount());
+		append(generation);
+	}
+
+	/**
+	 * Records the current generation of an engine by comparing it with the
+	 * current state.  An edit that left the board as it was records
+	 * nothing.
+	 *
+	 * @param engine - the engine, which may have computed a generation or
+	 *          been edited since the current state.
+	 * @param generation - the generation the engine shows.
+	 * @param edited - true if the engine was edited rather than stepped.
+	 */
+	void record(LifeEngine engine, long generation, boolean edited) {
+		_scratch.capture(engine);
+		record(_scratch, generation, edited);
+	}
+
+	/**
+	 * Records a frame by comparing it with the current state.
+	 *
+	 * @param frame - a frame of the size of the board.
+	 * @param generation - the generation the frame shows.
+	 * @param edited - true if the frame holds an edit rather than a new
+	 *          generation, in which case an unchanged board records nothing.
+	 */
+	void record(Frame frame, long generation, boolean edited) {
+		for (int y = 0; y < frame.getHeight(); y++) {
+			for (int i = 0; i < wordsPerRow; i++) {
+				int index = y * wordsPerRow + i;
+				long word = frame.getWord(y, i) ^ _board[index];
+				if (word != 0) {
+					touch(index, word);
+				}
+			}
+		}
+		if (edited && _touchedCount == 0) {
+			return;
+		}
+		append(generation);
+	}
+
+	/**
+	 * Moves the current state to the last one recorded for a generation,
+	 * or to the oldest one if the generation is older.  The board changes
+	 * this made are kept for applyTo().
+	 *
+	 * @param generation - the generation to show.
+	 * @return true if the current state changed.
+	 */
+	boolean seek(long generation) {
+		// Last state whose generation is not after the one asked for.
+		long low = _first;
+		long high = _first + _count - 1;
+		while (low < high) {
+			long middle = (low + high + 1) >>> 1;
+			if (entry(middle).generation <= generation) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		long target = low;
+		if (target == _position) {
+			return false;
+		}
+
+		// Starting from a keyframe is worth it when it is closer.
+		long distance = Math.abs(target - _position);
+		long keyframe = -1;
+		for (long d = 0; d + 1 < distance && d < KEYFRAME_INTERVAL; d++) {
+			if (target - d >= _first && entry(target - d).keyWords != null) {
+				keyframe = target - d;
+				break;
+			}
+			if (target + d < _first + _count
+					&& entry(target + d).keyWords != null) {
+				keyframe = target + d;
+				break;
+			}
+		}
+		if (keyframe >= 0) {
+			Entry key = entry(keyframe);
+			if (key.keyIndices == null) {
+				System.arraycopy(key.keyWords, 0, _board, 0, _board.length);
+			} else {
+				for (int i = 0; i < _board.length; i++) {
+					_board[i] = 0;
+				}
+				for (int i = 0; i < key.keyIndices.length; i++) {
+					_board[key.keyIndices[i]] = key.keyWords[i];
+				}
+			}
+			_reloaded = true;
+			_position = keyframe;
+		}
+		while (_position < target) {
+			_position++;
+			applyDelta(entry(_position));
+		}
+		while (_position > target) {
+			applyDelta(entry(_position));
+			_position--;
+		}
+		_nonZero = countNonZero();
+		return true;
+	}
+
+	/**
+	 * Brings an engine holding the state current before the last seeks to
+	 * the current state, only touching the cells that differ unless a
+	 * keyframe was loaded.
+	 *
+	 * @param engine - the engine to update.
+	 */
+	void applyTo(LifeEngine engine) {
+		if (engine instanceof BitGrid) {
+			((BitGrid) engine).setCells(_board);
+		} else if (_reloaded) {
+			engine.clear();
+			for (int index = 0; index < _board.length; index++) {
+				setCells(engine, index, _board[index]);
+			}
+		} else {
+			for (int t = 0; t < _touchedCount; t++) {
+				int index = _touched[t];
+				long word = _diff[index];
+				int y = index / wordsPerRow;
+				while (word != 0) {
+					int x = ((index % wordsPerRow) << 6)
+							+ Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+					engine.setAlive(y, x, !engine.isAlive(y, x));
+				}
+			}
+		}
+		clearTouched();
+		_reloaded = false;
+	}
+
+	private void setCells(LifeEngine engine, int index, long word) {
+		int y = index / wordsPerRow;
+		while (word != 0) {
+			int x = ((index % wordsPerRow) << 6)
+					+ Long.numberOfTrailingZeros(word);
+			word &= word - 1;
+			engine.setAlive(y, x, true);
+		}
+	}
+
+	/**
+	 * Flips the board words of the cells listed in a delta.
+	 */
+	private void addCells(int[] cells, int count) {
+		for (int c = 0; c < count; c++) {
+			int y = cells[c] / width;
+			int x = cells[c] - y * width;
+			touch(y * wordsPerRow + (x >>> 6), 1L << x);
+		}
+	}
+
+	private void touch(int index, long word) {
+		if (!_isTouched[index]) {
+			_isTouched[index] = true;
+			_touched[_touchedCount++] = index;
+		}
+		_diff[index] ^= word;
+	}
+
+	private void clearTouched() {
+		for (int t = 0; t < _touchedCount; t++) {
+			int index = _touched[t];
+			_diff[index] = 0;
+			_isTouched[index] = false;
+		}
+		_touchedCount = 0;
+	}
+
+	private void applyDelta(Entry entry) {
+		long[] words = entry.deltaWords;
+		if (entry.deltaIndices == null) {
+			for (int i = 0; i < words.length; i++) {
+				_board[i] ^= words[i];
+				if (words[i] != 0) {
+					touch(i, words[i]);
+				}
+			}
+		} else {
+			int[] indices = entry.deltaIndices;
+			for (int i = 0; i < indices.length; i++) {
+				_board[indices[i]] ^= words[i];
+				touch(indices[i], words[i]);
+			}
+		}
+	}
+
+	/**
+	 * Turns the words touched since the current state into a new state
+	 * after it, dropping the states that came after the current one.
+	 */
+	private void append(long generation) {
+		if (generation < entry(_position).generation) {
+			// A board loaded from an earlier generation starts a new record.
+			for (int i = 0; i < _entries.length; i++) {
+				_entries[i] = null;
+			}
+			_head = 0;
+			_first = _position + 1;
+			_count = 0;
+			_bytes = 0;
+			_lastKeyframe = _first - KEYFRAME_INTERVAL;
+		}
+		while (_first + _count - 1 > _position) {
+			Entry dropped = entry(_first + _count - 1);
+			_entries[slot(_first + _count - 1)] = null;
+			_bytes -= dropped.bytes;
+			_count--;
+		}
+		if (_lastKeyframe > _position) {
+			findLastKeyframe();
+		}
+
+		Entry entry = new Entry();
+		entry.generation = generation;
+		int changed = 0;
+		for (int t = 0; t < _touchedCount; t++) {
+			if (_diff[_touched[t]] != 0) {
+				changed++;
+			}
+		}
+		if (changed == 0) {
+			entry.deltaIndices = NO_INDICES;
+			entry.deltaWords = NO_WORDS;
+		} else if (12L * changed >= 8L * _board.length) {
+			entry.deltaWords = _diff.clone();
+		} else {
+			entry.deltaIndices = new int[changed];
+			entry.deltaWords = new long[changed];
+			int n = 0;
+			for (int t = 0; t < _touchedCount; t++) {
+				int index = _touched[t];
+				if (_diff[index] != 0) {
+					entry.deltaIndices[n] = index;
+					entry.deltaWords[n++] = _diff[index];
+				}
+			}
+		}
+		for (int t = 0; t < _touchedCount; t++) {
+			int index = _touched[t];
+			if (_board[index] == 0) {
+				_nonZero++;
+			}
+			_board[index] ^= _diff[index];
+			if (_board[index] == 0) {
+				_nonZero--;
+			}
+		}
+		clearTouched();
+		entry.bytes = ENTRY_OVERHEAD + 8 * entry.deltaWords.length
+				+ ((entry.deltaIndices == null) ? 0
+						: 4 * entry.deltaIndices.length);
+
+		_bytesSinceKeyframe += entry.bytes;
+		long position = _first + _count;
+		if (position - _lastKeyframe >= KEYFRAME_INTERVAL
+				|| _bytesSinceKeyframe >= keyframeBytes()) {
+			setKeyframe(entry);
+			_lastKeyframe = position;
+			_bytesSinceKeyframe = 0;
+		}
+
+		if (_count == _entries.length) {
+			Entry[] larger = new Entry[2 * _entries.length];
+			for (int i = 0; i < _count; i++) {
+				larger[i] = _entries[(_head + i) % _entries.length];
+			}
+			_entries = larger;
+			_head = 0;
+		}
+		_entries[slot(position)] = entry;
+		_count++;
+		_bytes += entry.bytes;
+		_position = position;
+		evict();
+	}
+
+	/**
+	 * @return the estimated bytes of a keyframe of the current board.
+	 */
+	private long keyframeBytes() {
+		return ENTRY_OVERHEAD + Math.min(12L * _nonZero, 8L * _board.length);
+	}
+
+	private int countNonZero() {
+		int nonZero = 0;
+		for (int i = 0; i < _board.length; i++) {
+			if (_board[i] != 0) {
+				nonZero++;
+			}
+		}
+		return nonZero;
+	}
+
+	/**
+	 * Finds the last keyframe up to the current state, and the bytes of the
+	 * deltas recorded since, after the states following it were dropped.
+	 */
+	private void findLastKeyframe() {
+		_lastKeyframe = _first;
+		_bytesSinceKeyframe = 0;
+		for (long p = _position; p >= _first; p--) {
+			Entry entry = entry(p);
+			if (entry.keyWords != null) {
+				_lastKeyframe = p;
+				return;
+			}
+			_bytesSinceKeyframe += entry.bytes;
+		}
+	}
+
+	/**
+	 * Stores the current board in an entry as a keyframe.
+	 */
+	private void setKeyframe(Entry entry) {
+		int nonZero = _nonZero;
+		if (12L * nonZero >= 8L * _board.length) {
+			entry.keyWords = _board.clone();
+			entry.bytes += 8 * _board.length;
+		} else {
+			entry.keyIndices = new int[nonZero];
+			entry.keyWords = new long[nonZero];
+			int n = 0;
+			for (int i = 0; i < _board.length; i++) {
+				if (_board[i] != 0) {
+					entry.keyIndices[n] = i;
+					entry.keyWords[n++] = _board[i];
+				}
+			}
+			entry.bytes += 12 * nonZero;
+		}
+	}
+
+	/**
+	 * Drops the oldest states until the record fits its budget, always
+	 * keeping the current state.
+	 */
+	private void evict() {
+		while (_bytes > _budget && _first < _position) {
+			Entry oldest = _entries[_head];
+			_entries[_head] = null;
+			_head = (_head + 1) % _entries.length;
+			_first++;
+			_count--;
+			_bytes -= oldest.bytes;
+		}
+		if (_lastKeyframe < _first) {
+			_lastKeyframe = _first;
+		}
+	}
+
+	private int slot(long position) {
+		return (int) ((_head + (position - _first)) % _entries.length);
+	}
+
+	private Entry entry(long position) {
+		return _entries[slot(position)];
+	}
+}
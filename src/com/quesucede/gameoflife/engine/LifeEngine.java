@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * A Game of Life simulation engine.  Engines are plain Java and never touch
+ * Android classes, so they can be created and stepped headless on any JVM.
+ * Cells are addressed by row (y) and column (x).
+ */
+public interface LifeEngine {
+
+	/**
+	 * @return the height of the board in cells
+	 */
+	int getHeight();
+
+	/**
+	 * @return the width of the board in cells
+	 */
+	int getWidth();
+
+	/**
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @return true if the cell is alive.
+	 */
+	boolean isAlive(int y, int x);
+
+	/**
+	 * Sets the cell at (y,x) to alive or dead.
+	 *
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @param alive - the new state of the cell.
+	 */
+	void setAlive(int y, int x, boolean alive);
+
+	/**
+	 * Resets all cells to dead.
+	 */
+	void clear();
+
+	/**
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @return the number of living neighbors of the cell.
+	 */
+	int countNeighbors(int y, int x);
+
+	/**
+	 * @return the number of living cells on the board.
+	 */
+	long getPopulation();
+
+	/**
+	 * @return the number of generations computed so far.
+	 */
+	long getGeneration();
+
+	/**
+	 * @return the rule used to compute the next generation.
+	 */
+	Rule getRule();
+
+	/**
+	 * Changes the rule used to compute the following generations.
+	 *
+	 * @param rule - the new rule.
+	 */
+	void setRule(Rule rule);
+
+	/**
+	 * Advances the board by one generation.
+	 */
+	void step();
+}
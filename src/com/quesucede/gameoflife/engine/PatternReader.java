@@ -0,0 +1,376 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming reader of patterns in the RLE and Life 1.06 formats.  The input
+ * is read once through a fixed buffer and every living cell is set in the
+ * engine as soon as it is decoded, so no lines, strings or cell lists are
+ * built and a pattern of any size loads in bounded memory.
+ *
+ * The format is told from the first line: "#Life 1.06" starts a list of
+ * "x y" cell coordinates, anything else is read as RLE, with optional
+ * "#" comment lines, a "x = width, y = height, rule = B3/S23" header and
+ * runs of dead ("b" or ".") and living (any other letter) cells, with "$"
+ * ending a row and "!" ending the pattern.
+ */
+public final class PatternReader {
+
+	private static final String LIFE_106 = "#Life 1.06";
+
+	// Longest rule in an RLE header.
+	private static final int MAX_RULE_LENGTH = 64;
+
+	// Largest run count of an RLE body, and largest number anywhere else,
+	// so that no count or coordinate overflows.
+	private static final long MAX_RUN = 1L << 24;
+	private static final long MAX_NUMBER = 1L << 60;
+
+	private final Reader in;
+	private final char[] _buffer = new char[8192];
+	private int _position;
+	private int _limit;
+
+	// Where the cells go, and the board position of pattern cell (0,0).
+	private LifeEngine _engine;
+	private long _top;
+	private long _left;
+
+	private long _cells;
+
+	/**
+	 * Constructor for the PatternReader class.
+	 *
+	 * @param in - the pattern text, which is read but not closed.
+	 */
+	public PatternReader(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads the pattern into an engine, centered on a cell of the board.
+	 * An RLE pattern is centered by the size in its header, a Life 1.06
+	 * pattern has its cell (0,0) on the center.  On engines with a plane
+	 * behind the board, cells are placed on the plane even when they fall
+	 * outside the window; on other engines they are dropped.
+	 *
+	 * @param engine - the engine the living cells are set in.
+	 * @param centerY - board row to center the pattern on.
+	 * @param centerX - board column to center the pattern on.
+	 * @return the rule in the RLE header, or null if there is none.
+	 * @throws IOException if the input cannot be read or is malformed.
+	 */
+	public Rule read(LifeEngine engine, int centerY, int centerX)
+			throws IOException {
+		_engine = engine;
+		_top = centerY;
+		_left = centerX;
+		if (engine instanceof PlaneEngine) {
+			_top += ((PlaneEngine) engine).getOriginY();
+			_left += ((PlaneEngine) engine).getOriginX();
+		}
+		_cells = 0;
+
+		skipWhitespace();
+		if (peek() == '#' && matchLine(LIFE_106)) {
+			readLife106();
+			return null;
+		}
+		return readRle();
+	}
+
+	/**
+	 * @return the number of living cells read by the last call to read().
+	 */
+	public long getCellCount() {
+		return _cells;
+	}
+
+	private void readLife106() throws IOException {
+		while (true) {
+			skipWhitespace();
+			int c = peek();
+			if (c < 0) {
+				return;
+			}
+			if (c == '#') {
+				skipLine();
+				continue;
+			}
+			long x = readNumber();
+			skipBlanks();
+			long y = readNumber();
+			setAlive(y, x);
+		}
+	}
+
+	private Rule readRle() throws IOException {
+		while (true) {
+			skipWhitespace();
+			if (peek() != '#') {
+				break;
+			}
+			skipLine();
+		}
+
+		// Header, whose size centers the pattern.
+		long width = 0;
+		long height = 0;
+		Rule rule = null;
+		if (peek() == 'x') {
+			while (true) {
+				skipBlanks();
+				int key = next();
+				skipWord();
+				skipBlanks();
+				if (next() != '=') {
+					throw new IOException("Malformed RLE header.");
+				}
+				skipBlanks();
+				if (key == 'x') {
+					width = readNumber();
+				} else if (key == 'y') {
+					height = readNumber();
+				} else if (key == 'r') {
+					rule = readRule();
+				} else {
+					skipValue();
+				}
+				skipBlanks();
+				int c = next();
+				if (c == '\n' || c == '\r' || c < 0) {
+					break;
+				}
+				if (c != ',') {
+					throw new IOException("Malformed RLE header.");
+				}
+			}
+		}
+		_top -= height / 2;
+		_left -= width / 2;
+
+		long y = 0;
+		long x = 0;
+		long run = 0;
+		while (true) {
+			int c = next();
+			if (c < 0 || c == '!') {
+				return rule;
+			}
+			if (c >= '0' && c <= '9') {
+				run = run * 10 + (c - '0');
+				if (run > MAX_RUN) {
+					throw new IOException("RLE run count is too large.");
+				}
+				continue;
+			}
+			if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+				continue;
+			}
+			long count = (run == 0) ? 1 : run;
+			run = 0;
+			if (c == '$') {
+				y += count;
+				x = 0;
+			} else if (c == 'b' || c == '.') {
+				x += count;
+			} else if (Character.isLetter((char) c)) {
+				setAlive(y, x, count);
+				x += count;
+			} else {
+				throw new IOException("Unexpected '" + (char) c
+						+ "' in RLE pattern.");
+			}
+		}
+	}
+
+	private Rule readRule() throws IOException {
+		char[] rule = new char[MAX_RULE_LENGTH];
+		int length = 0;
+		while (true) {
+			int c = peek();
+			if (c < 0 || c == ',' || c == '\n' || c == '\r' || c == ' ') {
+				break;
+			}
+			if (length == rule.length) {
+				throw new IOException("RLE rule is too long.");
+			}
+			rule[length++] = (char) next();
+		}
+		try {
+			return Rule.parse(new String(rule, 0, length));
+		} catch (IllegalArgumentException e) {
+			// Rules this engine does not know, such as Generations, are
+			// left to the settings.
+			return null;
+		}
+	}
+
+	/**
+	 * Sets a run of cells of a row, leaving out on a board the part of
+	 * the run that falls off it.
+	 */
+	private void setAlive(long y, long x, long count) {
+		long end = x + count;
+		if (!(_engine instanceof PlaneEngine)) {
+			if (y + _top < 0 || y + _top >= _engine.getHeight()) {
+				return;
+			}
+			x = Math.max(x, -_left);
+			end = Math.min(end, _engine.getWidth() - _left);
+		}
+		for (; x < end; x++) {
+			setAlive(y, x);
+		}
+	}
+
+	private void setAlive(long y, long x) {
+		y += _top;
+		x += _left;
+		if (_engine instanceof PlaneEngine) {
+			((PlaneEngine) _engine).setAlive(y, x, true);
+		} else if (y >= 0 && y < _engine.getHeight() && x >= 0
+				&& x < _engine.getWidth()) {
+			_engine.setAlive((int) y, (int) x, true);
+		} else {
+			return;
+		}
+		_cells++;
+	}
+
+	/**
+	 * Consumes the current line if it starts with the given text.
+	 *
+	 * @return true if it did.
+	 */
+	private boolean matchLine(String text) throws IOException {
+		// Only the first line is matched, which still fits the buffer.
+		fill(text.length());
+		if (_limit - _position < text.length()) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (_buffer[_position + i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		skipLine();
+		return true;
+	}
+
+	private long readNumber() throws IOException {
+		boolean negative = false;
+		if (peek() == '-' || peek() == '+') {
+			negative = next() == '-';
+		}
+		int c = peek();
+		if (c < '0' || c > '9') {
+			throw new IOException("Expected a number in pattern.");
+		}
+		long value = 0;
+		while ((c = peek()) >= '0' && c <= '9') {
+			value = value * 10 + (next() - '0');
+			if (value > MAX_NUMBER) {
+				throw new IOException("Number in pattern is too large.");
+			}
+		}
+		return negative ? -value : value;
+	}
+
+	private void skipWord() throws IOException {
+		int c;
+		while ((c = peek()) >= 0 && Character.isLetterOrDigit((char) c)) {
+			next();
+		}
+	}
+
+	private void skipValue() throws IOException {
+		int c;
+		while ((c = peek()) >= 0 && c != ',' && c != '\n' && c != '\r') {
+			next();
+		}
+	}
+
+	private void skipLine() throws IOException {
+		int c;
+		while ((c = next()) >= 0 && c != '\n') {
+			// Skipped.
+		}
+	}
+
+	private void skipBlanks() throws IOException {
+		while (peek() == ' ' || peek() == '\t') {
+			next();
+		}
+	}
+
+	private void skipWhitespace() throws IOException {
+		int c;
+		while ((c = peek()) == ' ' || c == '\t' || c == '\r' || c == '\n') {
+			next();
+		}
+	}
+
+	private int peek() throws IOException {
+		if (_position == _limit && !fill(1)) {
+			return -1;
+		}
+		return _buffer[_position];
+	}
+
+	private int next() throws IOException {
+		if (_position == _limit && !fill(1)) {
+			return -1;
+		}
+		return _buffer[_position++];
+	}
+
+	/**
+	 * Reads until at least the given number of characters are buffered or
+	 * the input ends.
+	 *
+	 * @return true if at least one character is buffered.
+	 */
+	private boolean fill(int wanted) throws IOException {
+		if (_limit - _position < wanted) {
+			System.arraycopy(_buffer, _position, _buffer, 0,
+					_limit - _position);
+			_limit -= _position;
+			_position = 0;
+			while (_limit < wanted) {
+				int read = in.read(_buffer, _limit, _buffer.length - _limit);
+				if (read < 0) {
+					break;
+				}
+				_limit += read;
+			}
+		}
+		return _limit > _position;
+	}
+}
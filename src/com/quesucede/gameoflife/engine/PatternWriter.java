@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming writer of frames in the RLE and Life 1.06 formats.  The text is
+ * produced straight from the bit-packed rows of the frame through a fixed
+ * buffer, without building strings or cell lists.
+ */
+public final class PatternWriter {
+
+	// Longest line of an RLE body, as recommended by the format.
+	private static final int RLE_LINE_LENGTH = 70;
+
+	// Largest bounding box of the living cells of a plane that is written,
+	// every cell of which is looked up.
+	public static final long MAX_PLANE_CELLS = 1L << 24;
+
+	private final Writer out;
+	private final char[] _buffer = new char[8192];
+	private int _length;
+
+	// Characters on the current RLE line.
+	private int _column;
+
+	/**
+	 * Constructor for the PatternWriter class.
+	 *
+	 * @param out - where the text goes, which is flushed but not closed.
+	 */
+	public PatternWriter(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes the living cells of a frame in RLE, cropped to their bounding
+	 * box.
+	 *
+	 * @param frame - the generation to write.
+	 * @param rule - the rule written in the header.
+	 * @throws IOException if the text cannot be written.
+	 */
+	public void writeRle(Frame frame, Rule rule) throws IOException {
+		int top = frame.getHeight();
+		int bottom = -1;
+		int left = frame.getWidth();
+		int right = -1;
+		for (int y = 0; y < frame.getHeight(); y++) {
+			for (int i = 0; i < frame.getWordsPerRow(); i++) {
+				long word = frame.getWord(y, i);
+				if (word != 0) {
+					top = Math.min(top, y);
+					bottom = y;
+					left = Math.min(left,
+							(i << 6) + Long.numberOfTrailingZeros(word));
+					right = Math.max(right,
+							(i << 6) + 63 - Long.numberOfLeadingZeros(word));
+				}
+			}
+		}
+		if (bottom < 0) {
+			top = bottom = left = right = 0;
+		}
+		writeRle(frame, null, frame.getGeneration(), rule, top, left, bottom,
+				right);
+	}
+
+	/**
+	 * Writes the current generation of an engine in RLE, with its rule.
+	 * Boards are cropped to the bounding box of their living cells, and so
+	 * are planes, including the cells outside their window.  Must only be
+	 * called by the thread stepping the engine.
+	 *
+	 * @param engine - the engine to write.
+	 * @throws IOException if the text cannot be written.
+	 * @throws IllegalArgumentException if the living cells of a plane are
+	 *          spread over more than MAX_PLANE_CELLS cells.
+	 */
+	public void writeRle(LifeEngine engine) throws IOException {
+		if (!(engine instanceof PlaneEngine)) {
+			Frame frame = new Frame(engine.getHeight(), engine.getWidth());
+			frame.capture(engine);
+			writeRle(frame, engine.getRule());
+			return;
+		}
+		PlaneEngine plane = (PlaneEngine) engine;
+		long[] bounds = new long[4];
+		if (!plane.getBounds(bounds)) {
+			bounds[0] = bounds[1] = bounds[2] = bounds[3] = 0;
+		}
+		long rows = bounds[2] - bounds[0] + 1;
+		long columns = bounds[3] - bounds[1] + 1;
+		if (rows <= 0 || columns <= 0 || rows > MAX_PLANE_CELLS / columns) {
+			throw new IllegalArgumentException("The living cells span "
+					+ rows + " by " + columns + " cells, too many to write.");
+		}
+		writeRle(null, plane, engine.getGeneration(), engine.getRule(),
+				bounds[0], bounds[1], bounds[2], bounds[3]);
+	}
+
+	/**
+	 * Writes the cells of a rectangle of a frame, or else of a plane, in
+	 * RLE.
+	 */
+	private void writeRle(Frame frame, PlaneEngine plane, long generation,
+			Rule rule, long top, long left, long bottom, long right)
+			throws IOException {
+		append("#C Generation ");
+		append(generation);
+		append('\n');
+		append("x = ");
+		append(right - left + 1);
+		append(", y = ");
+		append(bottom - top + 1);
+		append(", rule = ");
+		append(rule.toString());
+		append('\n');
+
+		_column = 0;
+		long emptyRows = 0;
+		for (long y = top; y <= bottom; y++) {
+			long x = left;
+			boolean emptyRow = true;
+			while (x <= right) {
+				boolean alive = isAlive(frame, plane, y, x);
+				long end = x + 1;
+				while (end <= right && isAlive(frame, plane, y, end) == alive) {
+					end++;
+				}
+				if (alive) {
+					if (emptyRow) {
+						if (y > top) {
+							writeRun(emptyRows + 1, '$');
+						}
+						emptyRows = 0;
+						emptyRow = false;
+					}
+					writeRun(end - x, 'o');
+				} else if (end <= right) {
+					// Dead cells at the end of a row are left out.
+					if (emptyRow) {
+						if (y > top) {
+							writeRun(emptyRows + 1, '$');
+						}
+						emptyRows = 0;
+						emptyRow = false;
+					}
+					writeRun(end - x, 'b');
+				}
+				x = end;
+			}
+			if (emptyRow) {
+				emptyRows++;
+			}
+		}
+		append('!');
+		append('\n');
+		flush();
+	}
+
+	private static boolean isAlive(Frame frame, PlaneEngine plane, long y,
+			long x) {
+		return (frame != null) ? frame.isAlive((int) y, (int) x)
+				: plane.isAlive(y, x);
+	}
+
+	/**
+	 * Writes the coordinates of the living cells of a frame in Life 1.06,
+	 * with cell (0,0) on the center of the frame.
+	 *
+	 * @param frame - the generation to write.
+	 * @throws IOException if the text cannot be written.
+	 */
+	public void writeLife106(Frame frame) throws IOException {
+		int centerY = frame.getHeight() / 2;
+		int centerX = frame.getWidth() / 2;
+		append("#Life 1.06\n");
+		for (int y = 0; y < frame.getHeight(); y++) {
+			for (int i = 0; i < frame.getWordsPerRow(); i++) {
+				long word = frame.getWord(y, i);
+				while (word != 0) {
+					int x = (i << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+					append(x - centerX);
+					append(' ');
+					append(y - centerY);
+					append('\n');
+				}
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Writes a run of RLE cells or row ends, starting a new line first if
+	 * it would not fit.
+	 */
+	private void writeRun(long count, char tag) throws IOException {
+		int length = 1 + ((count == 1) ? 0 : digits(count));
+		if (_column + length > RLE_LINE_LENGTH) {
+			append('\n');
+			_column = 0;
+		}
+		if (count != 1) {
+			append(count);
+		}
+		append(tag);
+		_column += length;
+	}
+
+	private static int digits(long value) {
+		int digits = 1;
+		while (value >= 10) {
+			value /= 10;
+			digits++;
+		}
+		return digits;
+	}
+
+	private void append(char c) throws IOException {
+		if (_length == _buffer.length) {
+			out.write(_buffer, 0, _length);
+			_length = 0;
+		}
+		_buffer[_length++] = c;
+	}
+
+	private void append(String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			append(text.charAt(i));
+		}
+	}
+
+	private void append(long value) throws IOException {
+		if (value < 0) {
+			append('-');
+			value = -value;
+		}
+		for (long scale = pow10(digits(value) - 1); scale > 0; scale /= 10) {
+			append((char) ('0' + (value / scale) % 10));
+		}
+	}
+
+	private static long pow10(int exponent) {
+		long value = 1;
+		for (int i = 0; i < exponent; i++) {
+			value *= 10;
+		}
+		return value;
+	}
+
+	private void flush() throws IOException {
+		out.write(_buffer, 0, _length);
+		_length = 0;
+		out.flush();
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * An engine whose cells live on an unbounded plane.  The board coordinates
+ * of the LifeEngine methods are a window of getWidth() by getHeight() cells
+ * onto the plane, which can be panned by moving its origin.
+ */
+public interface PlaneEngine extends LifeEngine {
+
+	/**
+	 * Moves the window over the plane.
+	 *
+	 * @param y - plane row shown at the top of the window.
+	 * @param x - plane column shown at the left of the window.
+	 */
+	void setOrigin(long y, long x);
+
+	/**
+	 * @return the plane row shown at the top of the window.
+	 */
+	long getOriginY();
+
+	/**
+	 * @return the plane column shown at the left of the window.
+	 */
+	long getOriginX();
+
+	/**
+	 * @param y - plane row of the cell.
+	 * @param x - plane column of the cell.
+	 * @return true if the cell is alive.
+	 */
+	boolean isAlive(long y, long x);
+
+	/**
+	 * Sets the cell at plane coordinates (y,x) to alive or dead.
+	 *
+	 * @param y - plane row of the cell.
+	 * @param x - plane column of the cell.
+	 * @param alive - the new state of the cell.
+	 */
+	void setAlive(long y, long x, boolean alive);
+
+	/**
+	 * Finds the smallest rectangle of the plane holding every living cell,
+	 * inside the window or not.
+	 *
+	 * @param bounds - receives the top row, left column, bottom row and
+	 *            right column of the rectangle, in that order.
+	 * @return false if no cell is alive, leaving the bounds unchanged.
+	 */
+	boolean getBounds(long[] bounds);
+}
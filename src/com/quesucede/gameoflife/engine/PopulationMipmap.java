@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Counts of the living cells in square tiles of a board, at several levels
+ * of detail.  Tiles of level 0 are TILE_SIZE cells wide and each level up
+ * doubles their size, until a single tile covers the board, so the
+ * population of any large area is read from a few counts.  The counts are
+ * kept up to date from the cells each generation changed, at a cost of one
+ * addition per level and changed cell, or rebuilt from a frame.
+ */
+public final class PopulationMipmap {
+
+	// Tiles of level 0 are 1 << TILE_SHIFT cells wide.
+	public static final int TILE_SHIFT = 3;
+	public static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+	private final int width;
+	private final int height;
+
+	// Counts of each level, row by row, and the size of each level in tiles.
+	private final int[][] counts;
+	private final int[] rows;
+	private final int[] columns;
+
+	/**
+	 * Constructor for the PopulationMipmap class, with every count zero.
+	 *
+	 * @param height - number of rows of cells.
+	 * @param width - number of columns of cells.
+	 */
+	public PopulationMipmap(int height, int width) {
+		this.width = width;
+		this.height = height;
+		int levels = 1;
+		while ((TILE_SIZE << (levels - 1)) < Math.max(width, height)) {
+			levels++;
+		}
+		this.counts = new int[levels][];
+		this.rows = new int[levels];
+		this.columns = new int[levels];
+		for (int level = 0; level < levels; level++) {
+			int shift = TILE_SHIFT + level;
+			rows[level] = ((height - 1) >> shift) + 1;
+			columns[level] = ((width - 1) >> shift) + 1;
+			counts[level] = new int[rows[level] * columns[level]];
+		}
+	}
+
+	/**
+	 * @return the number of levels, the last of which is a single tile.
+	 */
+	public int getLevels() {
+		return counts.length;
+	}
+
+	/**
+	 * @param level - a level of detail.
+	 * @return the width of the tiles of the level, in cells.
+	 */
+	public int getTileSize(int level) {
+		return TILE_SIZE << level;
+	}
+
+	/**
+	 * @param level - a level of detail.
+	 * @return the number of rows of tiles of the level.
+	 */
+	public int getRows(int level) {
+		return rows[level];
+	}
+
+	/**
+	 * @param level - a level of detail.
+	 * @return the number of columns of tiles of the level.
+	 */
+	public int getColumns(int level) {
+		return columns[level];
+	}
+
+	/**
+	 * @param level - a level of detail.
+	 * @param row - row of the tile within the level.
+	 * @param column - column of the tile within the level.
+	 * @return the number of living cells in the tile.
+	 */
+	public int getCount(int level, int row, int column) {
+		return counts[level][row * columns[level] + column];
+	}
+
+	/**
+	 * @param level - a level of detail.
+	 * @param row - row of the tile within the level.
+	 * @param column - column of the tile within the level.
+	 * @return the number of cells of the tile that are on the board.
+	 */
+	public int getArea(int level, int row, int column) {
+		int size = TILE_SIZE << level;
+		int tileHeight = Math.min(size, height - row * size);
+		int tileWidth = Math.min(size, width - column * size);
+		return tileHeight * tileWidth;
+	}
+
+	/**
+	 * Updates the counts with the cells one generation changed.
+	 *
+	 * @param changes - the cells born and died, on a board of this width.
+	 */
+	void update(ChangeList changes) {
+		int[] born = changes.getBorn();
+		for (int i = 0; i < changes.getBornCount(); i++) {
+			add(born[i], 1);
+		}
+		int[] died = changes.getDied();
+		for (int i = 0; i < changes.getDiedCount(); i++) {
+			add(died[i], -1);
+		}
+	}
+
+	private void add(int cell, int delta) {
+		int y = cell / width;
+		int x = cell - y * width;
+		for (int level = 0; level < counts.length; level++) {
+			int shift = TILE_SHIFT + level;
+			counts[level][(y >> shift) * columns[level] + (x >> shift)]
+					+= delta;
+		}
+	}
+
+	/**
+	 * Recounts every tile from the cells of a frame.
+	 *
+	 * @param frame - a frame of the size of the board.
+	 */
+	void rebuild(Frame frame) {
+		int[] base = counts[0];
+		for (int i = 0; i < base.length; i++) {
+			base[i] = 0;
+		}
+		// A word holds TILE_SIZE bytes, each in its own tile of level 0.
+		int tilesPerWord = 64 / TILE_SIZE;
+		long mask = (1L << TILE_SIZE) - 1;
+		for (int y = 0; y < height; y++) {
+			int row = (y >> TILE_SHIFT) * columns[0];
+			for (int i = 0; i < frame.getWordsPerRow(); i++) {
+				long word = frame.getWord(y, i);
+				for (int t = 0; word != 0; t++) {
+					base[row + i * tilesPerWord + t] += Long.bitCount(word
+							& mask);
+					word >>>= TILE_SIZE;
+				}
+			}
+		}
+		// Each tile above sums the up to four tiles it covers below.
+		for (int level = 1; level < counts.length; level++) {
+			int[] below = counts[level - 1];
+			int[] above = counts[level];
+			int belowColumns = columns[level - 1];
+			int belowRows = rows[level - 1];
+			for (int r = 0; r < rows[level]; r++) {
+				for (int c = 0; c < columns[level]; c++) {
+					int sum = 0;
+					for (int dr = 0; dr < 2 && 2 * r + dr < belowRows; dr++) {
+						for (int dc = 0; dc < 2 && 2 * c + dc < belowColumns;
+								dc++) {
+							sum += below[(2 * r + dr) * belowColumns + 2 * c
+									+ dc];
+						}
+					}
+					above[r * columns[level] + c] = sum;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies the counts of another mipmap of the same board size.
+	 *
+	 * @param source - the mipmap to copy.
+	 */
+	void copyFrom(PopulationMipmap source) {
+		for (int level = 0; level < counts.length; level++) {
+			System.arraycopy(source.counts[level], 0, counts[level], 0,
+					counts[level].length);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Immutable set of birth and survival conditions for the simulation.  Bit n
+ * of the survive mask is set if a live cell with n neighbors stays alive, and
+ * bit n of the birth mask is set if a dead cell with n neighbors spawns.
+ *
+ * Rules can be written as B/S rulestrings such as "B3/S23" (Conway) or
+ * "B36/S23" (HighLife), and are precomputed into a transition table indexed
+ * by state and neighbor count so a cell's fate is a single array lookup.
+ */
+public final class Rule {
+
+	// Number of entries per cell state in the transition table.
+	public static final int TABLE_STRIDE = 9;
+
+	// Conway's original rules, B3/S23.
+	public static final Rule CONWAY = fromRange(2, 3, 3);
+
+	private final int surviveMask;
+	private final int birthMask;
+
+	// Next state of a cell, indexed by (alive ? 9 : 0) + neighbors.
+	private final byte[] table = new byte[2 * TABLE_STRIDE];
+
+	/**
+	 * Constructor for the Rule class.
+	 *
+	 * @param surviveMask - neighbor counts a live cell survives with.
+	 * @param birthMask - neighbor counts a dead cell spawns with.
+	 */
+	public Rule(int surviveMask, int birthMask) {
+		this.surviveMask = surviveMask & 0x1FF;
+		this.birthMask = birthMask & 0x1FF;
+		for (int n = 0; n < TABLE_STRIDE; n++) {
+			table[n] = (byte) ((this.birthMask >>> n) & 1);
+			table[TABLE_STRIDE + n] = (byte) ((this.surviveMask >>> n) & 1);
+		}
+	}
+
+	/**
+	 * Parses a rulestring in B/S notation, for example "B3/S23" or
+	 * "B3678/S34678".  The order of the two halves and the case of the
+	 * letters do not matter, and the older S/B notation without letters
+	 * ("23/3") is accepted as well.
+	 *
+	 * @param rulestring - the rule to parse.
+	 * @return the matching rule.
+	 * @throws IllegalArgumentException if the rulestring is malformed.
+	 */
+	public static Rule parse(String rulestring) {
+		String rule = rulestring.trim().toUpperCase();
+		int slash = rule.indexOf('/');
+		if (slash < 0 || rule.indexOf('/', slash + 1) >= 0) {
+			throw new IllegalArgumentException("Rule " + rulestring
+					+ " must have exactly one '/'.");
+		}
+		String first = rule.substring(0, slash);
+		String second = rule.substring(slash + 1);
+
+		String birth;
+		String survive;
+		if (first.startsWith("B") && second.startsWith("S")) {
+			birth = first.substring(1);
+			survive = second.substring(1);
+		} else if (first.startsWith("S") && second.startsWith("B")) {
+			survive = first.substring(1);
+			birth = second.substring(1);
+		} else if (!first.startsWith("B") && !first.startsWith("S")
+				&& !second.startsWith("B") && !second.startsWith("S")) {
+			// S/B notation, survival counts come first.
+			survive = first;
+			birth = second;
+		} else {
+			throw new IllegalArgumentException("Rule " + rulestring
+					+ " is not in B/S notation.");
+		}
+		return new Rule(parseCounts(survive, rulestring),
+				parseCounts(birth, rulestring));
+	}
+
+	/**
+	 * Converts a run of neighbor count digits into a mask.
+	 */
+	private static int parseCounts(String counts, String rulestring) {
+		int mask = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			char c = counts.charAt(i);
+			if (c < '0' || c > '8') {
+				throw new IllegalArgumentException("Rule " + rulestring
+						+ " has invalid neighbor count '" + c + "'.");
+			}
+			mask |= 1 << (c - '0');
+		}
+		return mask;
+	}
+
+	/**
+	 * Creates a rule where a live cell survives with minimum to maximum
+	 * neighbors and a dead cell spawns with exactly the spawn number of
+	 * neighbors, as configured in the cell behavior menu.
+	 *
+	 * @param minimum - fewest neighbors a live cell survives with.
+	 * @param maximum - most neighbors a live cell survives with.
+	 * @param spawn - neighbors a dead cell needs to spawn.
+	 * @return the matching rule.
+	 */
+	public static Rule fromRange(int minimum, int maximum, int spawn) {
+		int surviveMask = 0;
+		for (int n = minimum; n <= maximum; n++) {
+			surviveMask |= 1 << n;
+		}
+		return new Rule(surviveMask, 1 << spawn);
+	}
+
+	/**
+	 * @return the mask of neighbor counts a live cell survives with.
+	 */
+	public int getSurviveMask() {
+		return surviveMask;
+	}
+
+	/**
+	 * @return the mask of neighbor counts a dead cell spawns with.
+	 */
+	public int getBirthMask() {
+		return birthMask;
+	}
+
+	/**
+	 * @param alive - current state of the cell.
+	 * @param neighbors - number of living neighbors of the cell.
+	 * @return true if the cell is alive in the next generation.
+	 */
+	public boolean nextState(boolean alive, int neighbors) {
+		return table[(alive ? TABLE_STRIDE : 0) + neighbors] != 0;
+	}
+
+	/**
+	 * Copies the transition table for engines that index it directly.  The
+	 * next state of a cell is at (alive ? TABLE_STRIDE : 0) + neighbors and
+	 * is 1 for alive and 0 for dead.
+	 *
+	 * @return a new copy of the transition table.
+	 */
+	public byte[] toTable() {
+		byte[] copy = new byte[table.length];
+		System.arraycopy(table, 0, copy, 0, table.length);
+		return copy;
+	}
+
+	/**
+	 * @return the rule in B/S notation, for example "B3/S23".
+	 */
+	@Override
+	public String toString() {
+		StringBuilder rule = new StringBuilder("B");
+		appendCounts(rule, birthMask);
+		rule.append("/S");
+		appendCounts(rule, surviveMask);
+		return rule.toString();
+	}
+
+	private static void appendCounts(StringBuilder rule, int mask) {
+		for (int n = 0; n < TABLE_STRIDE; n++) {
+			if (((mask >>> n) & 1) != 0) {
+				rule.append((char) ('0' + n));
+			}
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Rule)) {
+			return false;
+		}
+		Rule other = (Rule) o;
+		return surviveMask == other.surviveMask && birthMask == other.birthMask;
+	}
+
+	@Override
+	public int hashCode() {
+		return (birthMask << 9) | surviveMask;
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size ring of performance samples, each made of the same number of
+ * long fields.  A single thread writes samples while any thread reads the
+ * latest ones, without locks: readers copy the samples and then drop the
+ * ones the writer may have overwritten meanwhile, so neither side ever
+ * waits for the other.
+ */
+public final class SampleRing {
+
+	private final int capacity;
+	private final int fields;
+	private final long[] values;
+
+	// Number of samples committed so far.
+	private final AtomicLong _written = new AtomicLong();
+
+	/**
+	 * Constructor for the SampleRing class.
+	 *
+	 * @param capacity - number of samples kept.
+	 * @param fields - number of fields of every sample.
+	 */
+	public SampleRing(int capacity, int fields) {
+		this.capacity = capacity;
+		this.fields = fields;
+		this.values = new long[capacity * fields];
+	}
+
+	/**
+	 * @return the number of fields of every sample.
+	 */
+	public int getFields() {
+		return fields;
+	}
+
+	/**
+	 * @return the number of samples written since the ring was created.
+	 */
+	public long getCount() {
+		return _written.get();
+	}
+
+	/**
+	 * Sets a field of the sample being written.  Must only be called by the
+	 * writing thread.
+	 *
+	 * @param field - index of the field.
+	 * @param value - value of the field.
+	 */
+	public void set(int field, long value) {
+		int slot = (int) (_written.get() % capacity);
+		values[slot * fields + field] = value;
+	}
+
+	/**
+	 * Makes the sample being written visible to readers and starts the next
+	 * one.  Must only be called by the writing thread.
+	 */
+	public void commit() {
+		_written.lazySet(_written.get() + 1);
+	}
+
+	/**
+	 * Copies the latest samples, oldest first.
+	 *
+	 * @param destination - array of at least maxSamples * getFields() longs.
+	 * @param maxSamples - largest number of samples to copy.
+	 * @return the number of samples copied.
+	 */
+	public int read(long[] destination, int maxSamples) {
+		long end = _written.get();
+		long start = Math.max(0, end - Math.min(maxSamples, capacity));
+		for (long sample = start; sample < end; sample++) {
+			System.arraycopy(values, (int) (sample % capacity) * fields,
+					destination, (int) (sample - start) * fields, fields);
+		}
+		// The sample being written after the copy shares a slot with the
+		// one capacity samples earlier, which may be torn.
+		long valid = _written.get() - capacity + 1;
+		if (valid > start) {
+			int dropped = (int) Math.min(valid - start, end - start);
+			System.arraycopy(destination, dropped * fields, destination, 0,
+					(int) (end - start - dropped) * fields);
+			start += dropped;
+		}
+		return (int) (end - start);
+	}
+
+	/**
+	 * @param samples - samples copied by read().
+	 * @param count - number of samples.
+	 * @param field - index of the field.
+	 * @return the mean of the field over the samples, or 0 without samples.
+	 */
+	public double mean(long[] samples, int count, int field) {
+		if (count == 0) {
+			return 0;
+		}
+		long total = 0;
+		for (int i = 0; i < count; i++) {
+			total += samples[i * fields + field];
+		}
+		return (double) total / count;
+	}
+
+	/**
+	 * @param samples - samples copied by read().
+	 * @param count - number of samples.
+	 * @param field - index of the field.
+	 * @return the largest value of the field, or 0 without samples.
+	 */
+	public long max(long[] samples, int count, int field) {
+		long max = (count == 0) ? 0 : Long.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			max = Math.max(max, samples[i * fields + field]);
+		}
+		return max;
+	}
+
+	/**
+	 * @param samples - samples copied by read().
+	 * @param count - number of samples.
+	 * @param field - index of the field.
+	 * @return the standard deviation of the field, or 0 without samples.
+	 */
+	public double deviation(long[] samples, int count, int field) {
+		if (count == 0) {
+			return 0;
+		}
+		double mean = mean(samples, count, field);
+		double squares = 0;
+		for (int i = 0; i < count; i++) {
+			double difference = samples[i * fields + field] - mean;
+			squares += difference * difference;
+		}
+		return Math.sqrt(squares / count);
+	}
+}
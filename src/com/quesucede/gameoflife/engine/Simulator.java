@@ -0,0 +1,773 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs an engine on its own thread.  Generations are computed at a fixed
+ * rate and published as frames into a FrameRing, from which the view draws
+ * the latest one, so stepping never waits for drawing and drawing never
+ * waits for stepping.  With a period of zero generations are computed back
+ * to back, and a frame is only published when the view asks for one, so
+ * many generations may pass between two displayed frames.  Every change to
+ * the engine from another thread, such as an edit or a new rule, is posted
+ * to the simulation thread and run between two generations.
+ *
+ * Boards of engines that track their changes are watched for cycles.  Once
+ * a board is found to be empty, still or periodic, the frames of one period
+ * are recorded and then replayed with increasing generation numbers
+ * instead of computing anything, until the next edit brings the engine
+ * back in step with the frame on screen.
+ *
+ * With a history budget set, every generation and every edit is recorded
+ * into a History, from which the board can be rewound.
+ *
+ * With mipmaps enabled, the populations of the tiles of the board are kept
+ * up to date from the cells each generation changed, and every published
+ * frame carries a copy of them.
+ */
+public class Simulator implements Runnable {
+
+	/**
+	 * Notified on the simulation thread whenever a new frame is published.
+	 */
+	public interface FrameListener {
+
+		/**
+		 * @param frame - the frame that was just published.
+		 */
+		void onFrameAvailable(Frame frame);
+	}
+
+	/**
+	 * Counts the objects allocated by the calling thread, which the
+	 * platform may or may not be able to tell.
+	 */
+	public interface AllocationCounter {
+
+		/**
+		 * @return the number of objects allocated by the calling thread so
+		 *          far.
+		 */
+		long getAllocations();
+	}
+
+	// Fields of the step samples: the generation computed, the time spent
+	// computing it, the population and the number of cells it changed
+	// (or -1 if the engine cannot tell), and the objects allocated by it.
+	public static final int SAMPLE_GENERATION = 0;
+	public static final int SAMPLE_STEP_NANOS = 1;
+	public static final int SAMPLE_POPULATION = 2;
+	public static final int SAMPLE_CHANGED_CELLS = 3;
+	public static final int SAMPLE_ALLOCATIONS = 4;
+	public static final int SAMPLE_FIELDS = 5;
+
+	// Number of step samples kept.
+	private static final int SAMPLE_CAPACITY = 256;
+
+	// Largest number of frame words stored to replay a cycle; longer cycles
+	// of large boards keep being computed.
+	private static final int MAX_REPLAY_WORDS = 1 << 20;
+
+	// Interval between replayed generations when running as fast as
+	// possible, about one per display frame.
+	private static final long REPLAY_FAST_NANOS = 16 * 1000000L;
+
+	// Number of frames in the ring: one being drawn, one published and one
+	// being filled.
+	private static final int RING_CAPACITY = 3;
+
+	private final LifeEngine engine;
+	private final FrameRing frames;
+
+	// Timing of every generation while metrics are enabled.
+	private final SampleRing samples = new SampleRing(SAMPLE_CAPACITY,
+			SAMPLE_FIELDS);
+	private final ChangeList _changes = new ChangeList();
+	private volatile boolean _metricsEnabled;
+	private volatile AllocationCounter _allocationCounter;
+
+	// Cycle detection, or null if the engine cannot list its changes.  The
+	// fields below are only used by the simulation thread.
+	private final CycleDetector _cycles;
+	private boolean _detectCycles = true;
+
+	// Frames of the detected cycle, the number recorded so far, or -1 when
+	// not recording, and the period.
+	private Frame[] _cycleFrames;
+	private int _recorded = -1;
+
+	// The board at the generation the cycle was detected at, which the
+	// last recorded frame must match before the cycle is replayed.
+	private Frame _cycleStart;
+	private int _period;
+
+	// Whether the cycle is being replayed, and the generations replayed.
+	private boolean _replaying;
+	private long _replayed;
+
+	// Generations replayed and never computed by the engine.
+	private long _generationOffset;
+
+	// Record of the latest generations, or null.  Only used by the
+	// simulation thread.
+	private History _history;
+
+	// Tile populations of the engine, and whether they are up to date with
+	// it.  Only used by the simulation thread.
+	private volatile boolean _mipmapsEnabled;
+	private PopulationMipmap _mipmap;
+	private boolean _mipmapValid;
+
+	// Words changed since two published frames, the older of which every
+	// new frame lists, and the numbers of those frames.  Only used by the
+	// simulation thread.
+	private ChangedWords _olderChanges;
+	private ChangedWords _recentChanges;
+	private long _olderSince;
+	private long _recentSince;
+	private long _serial;
+
+	// Guards every field below it.
+	private final Object lock = new Object();
+
+	private final List<Runnable> _pending = new ArrayList<Runnable>();
+	private boolean _running;
+	private boolean _stopped;
+	private long _periodNanos = 250 * 1000000L;
+	private boolean _frameRequested;
+	private FrameListener _listener;
+
+	// Tasks taken from the pending list, only used by the simulation thread.
+	private final List<Runnable> _tasks = new ArrayList<Runnable>();
+
+	private Thread _thread;
+
+	/**
+	 * Constructor for the Simulator class.  The engine must not be touched
+	 * by any other thread once the simulator is started, except through
+	 * post().
+	 *
+	 * @param engine - the engine to step.
+	 */
+	public Simulator(LifeEngine engine) {
+		this.engine = engine;
+		this.frames = new FrameRing(RING_CAPACITY, engine.getHeight(),
+				engine.getWidth());
+		this._cycles = (engine instanceof TrackingEngine)
+				? new CycleDetector() : null;
+		this._olderChanges = new ChangedWords(engine.getHeight(),
+				engine.getWidth());
+		this._recentChanges = new ChangedWords(engine.getHeight(),
+				engine.getWidth());
+	}
+
+	/**
+	 * @return the engine being stepped.
+	 */
+	public LifeEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * @return the ring the frames are published into.
+	 */
+	public FrameRing getFrames() {
+		return frames;
+	}
+
+	/**
+	 * @return the samples of the generations computed while metrics were
+	 *          enabled, with the fields given by the SAMPLE constants.
+	 */
+	public SampleRing getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Turns the collection of step samples on or off.  Collecting them costs
+	 * a population count per generation, so it is off by default.
+	 *
+	 * @param enabled - true to collect samples.
+	 */
+	public void setMetricsEnabled(boolean enabled) {
+		this._metricsEnabled = enabled;
+	}
+
+	/**
+	 * @param counter - counts allocations for the step samples, or null to
+	 *            record them as -1.
+	 */
+	public void setAllocationCounter(AllocationCounter counter) {
+		this._allocationCounter = counter;
+	}
+
+	/**
+	 * Turns the upkeep of the tile populations of the published frames on
+	 * or off.  Keeping them costs a few additions per changed cell and a
+	 * copy of the counts per published frame, so it is off by default.
+	 *
+	 * @param enabled - true for frames to carry their tile populations.
+	 */
+	public void setMipmapsEnabled(boolean enabled) {
+		this._mipmapsEnabled = enabled;
+	}
+
+	/**
+	 * Turns the replay of empty, still and periodic boards on or off.  The
+	 * change is posted like an edit, so a cycle being replayed is left
+	 * first.
+	 *
+	 * @param enabled - true to stop computing boards found to repeat.
+	 */
+	public void setCycleDetection(final boolean enabled) {
+		post(new Runnable() {
+			public void run() {
+				_detectCycles = enabled;
+			}
+		});
+	}
+
+	/**
+	 * Starts or stops recording generations to rewind to.  The change is
+	 * posted like an edit, and the record starts at the generation it runs
+	 * at.  Only finite engines are recorded, the budget is ignored for the
+	 * others.
+	 *
+	 * @param bytes - most bytes taken by the recorded generations, or 0 to
+	 *            stop recording them.
+	 */
+	public void setHistoryBudget(final long bytes) {
+		post(new Runnable() {
+			public void run() {
+				if (bytes <= 0 || !(engine instanceof FiniteEngine)) {
+					_history = null;
+				} else if (_history == null) {
+					_history = new History(engine, engine.getGeneration()
+							+ _generationOffset, bytes);
+				} else {
+					_history.setBudget(bytes);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Brings the board back, or forward again, to a recorded generation
+	 * between two generations.  Generations recorded after it are dropped
+	 * once the next one is computed.  Does nothing without a history.
+	 *
+	 * @param generation - the generation to show, which is clamped to the
+	 *            oldest recorded one.
+	 */
+	public void rewind(final long generation) {
+		post(new Runnable() {
+			public void run() {
+				seek(generation);
+			}
+		});
+	}
+
+	/**
+	 * Brings the board back to the generation before the one it shows.
+	 * Does nothing without a history.
+	 */
+	public void stepBack() {
+		post(new Runnable() {
+			public void run() {
+				if (_history != null) {
+					seek(_history.getGeneration() - 1);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @param listener - notified of every new frame, or null.
+	 */
+	public void setFrameListener(FrameListener listener) {
+		synchronized (lock) {
+			this._listener = listener;
+		}
+	}
+
+	/**
+	 * Starts the simulation thread, paused.
+	 */
+	public void start() {
+		_thread = new Thread(this, "Life simulation");
+		_thread.start();
+	}
+
+	/**
+	 * Stops the simulation thread and waits for the generation in progress,
+	 * if any, to finish.  The engine may be used by the calling thread once
+	 * this returns.
+	 */
+	public void stop() {
+		synchronized (lock) {
+			_stopped = true;
+			lock.notifyAll();
+		}
+		if (_thread != null) {
+			boolean interrupted = false;
+			while (_thread.isAlive()) {
+				try {
+					_thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * @param running - true to compute generations, false to pause.
+	 */
+	public void setRunning(boolean running) {
+		synchronized (lock) {
+			this._running = running;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * @return true if generations are being computed.
+	 */
+	public boolean isRunning() {
+		synchronized (lock) {
+			return _running;
+		}
+	}
+
+	/**
+	 * @param periodMillis - time between two generations, or 0 to compute
+	 *            them as fast as possible.
+	 */
+	public void setPeriodMillis(long periodMillis) {
+		synchronized (lock) {
+			this._periodNanos = periodMillis * 1000000L;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Asks for the current generation to be published, for views drawing
+	 * a simulation running as fast as possible.  Usually called once per
+	 * display frame.
+	 */
+	public void requestFrame() {
+		synchronized (lock) {
+			_frameRequested = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Loads a snapshot into the engine between two generations.  The
+	 * generation numbers of the frames continue from the one it was saved
+	 * at.
+	 *
+	 * @param snapshot - the board to load.
+	 */
+	public void restore(Snapshot snapshot) {
+		restore(snapshot, null);
+	}
+
+	/**
+	 * Loads a snapshot into the engine between two generations, then runs
+	 * a task before the next generation, such as setting the rule the
+	 * user picked since the snapshot was saved.
+	 *
+	 * @param snapshot - the board to load.
+	 * @param after - task run on the simulation thread once the snapshot
+	 *            is loaded, or null.
+	 */
+	public void restore(final Snapshot snapshot, final Runnable after) {
+		post(new Runnable() {
+			public void run() {
+				snapshot.applyTo(engine);
+				_generationOffset = snapshot.getGeneration()
+						- engine.getGeneration();
+				if (after != null) {
+					after.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sets the cells of a batch between two generations, all at once.
+	 *
+	 * @param batch - the cells to set, which must not be changed anymore.
+	 */
+	public void apply(final EditBatch batch) {
+		if (batch.size() == 0) {
+			return;
+		}
+		post(new Runnable() {
+			public void run() {
+				batch.applyTo(engine);
+			}
+		});
+	}
+
+	/**
+	 * Runs a task on the simulation thread between two generations, after
+	 * which a new frame is published.
+	 *
+	 * @param task - the task, usually an edit of the engine.
+	 */
+	public void post(Runnable task) {
+		synchronized (lock) {
+			_pending.add(task);
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * The simulation loop.  Generations are scheduled at a fixed rate from
+	 * the time the simulation was last resumed, so the time spent stepping
+	 * does not add up to a slower rate.
+	 */
+	public void run() {
+		publishFrame();
+		long nextStep = System.nanoTime();
+		boolean wasRunning = false;
+		// Whether generations were computed since the last published frame.
+		boolean stale = false;
+
+		while (true) {
+			boolean step;
+			boolean publish;
+			FrameListener listener;
+			synchronized (lock) {
+				while (true) {
+					if (_stopped) {
+						return;
+					}
+					long now = System.nanoTime();
+					if (_running && !wasRunning) {
+						nextStep = now;
+					}
+					wasRunning = _running;
+					if (!_pending.isEmpty() || (_running && now >= nextStep)) {
+						break;
+					}
+					// A paused simulation shows the generation it stopped at.
+					if (stale && (_frameRequested || !_running)) {
+						break;
+					}
+					try {
+						if (_running) {
+							long wait = nextStep - now;
+							lock.wait(wait / 1000000L, (int) (wait % 1000000L));
+						} else {
+							lock.wait();
+						}
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				_tasks.addAll(_pending);
+				_pending.clear();
+				long now = System.nanoTime();
+				step = _running && now >= nextStep;
+				if (step) {
+					// Skip generations that were missed rather than catching up.
+					nextStep += (_replaying && _periodNanos == 0)
+							? REPLAY_FAST_NANOS : _periodNanos;
+					if (nextStep < now) {
+						nextStep = now;
+					}
+				}
+				publish = _periodNanos > 0 || _frameRequested || !_running
+						|| !_tasks.isEmpty();
+				if (publish) {
+					_frameRequested = false;
+				}
+				listener = _listener;
+			}
+
+			if (!_tasks.isEmpty()) {
+				leaveCycle();
+				for (int i = 0; i < _tasks.size(); i++) {
+					_tasks.get(i).run();
+				}
+				_tasks.clear();
+				_mipmapValid = false;
+				invalidateChanges();
+				if (_history != null) {
+					_history.record(engine, engine.getGeneration()
+							+ _generationOffset, true);
+				}
+			}
+			if (step) {
+				if (_replaying) {
+					_replayed++;
+					invalidateChanges();
+					if (_history != null) {
+						_history.record(replayedFrame(), engine.getGeneration()
+								+ _generationOffset + _replayed, false);
+					}
+				} else {
+					stepEngine();
+				}
+				stale = true;
+			}
+			if (publish) {
+				Frame frame = publishFrame();
+				stale = false;
+				if (listener != null) {
+					listener.onFrameAvailable(frame);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes a generation, recording a sample of it if metrics are
+	 * enabled and watching for cycles.
+	 */
+	private void stepEngine() {
+		boolean measured = _metricsEnabled;
+		boolean detect = _cycles != null && _detectCycles;
+		boolean mipmaps = _mipmapValid && _mipmapsEnabled
+				&& engine instanceof TrackingEngine;
+		_mipmapValid = mipmaps;
+		if (!(engine instanceof TrackingEngine)) {
+			invalidateChanges();
+			if (!measured && _history == null) {
+				engine.step();
+				return;
+			}
+		}
+
+		AllocationCounter counter = measured ? _allocationCounter : null;
+		long allocations = (counter == null) ? 0 : counter.getAllocations();
+		long start = System.nanoTime();
+		long changed = -1;
+		if (engine instanceof TrackingEngine) {
+			((TrackingEngine) engine).step(_changes);
+			changed = _changes.getBornCount() + _changes.getDiedCount();
+		} else {
+			engine.step();
+		}
+		long nanos = System.nanoTime() - start;
+
+		if (mipmaps) {
+			_mipmap.update(_changes);
+		}
+		if (engine instanceof TrackingEngine) {
+			_olderChanges.add(_changes);
+			_recentChanges.add(_changes);
+		}
+		if (_history != null) {
+			long generation = engine.getGeneration() + _generationOffset;
+			if (engine instanceof TrackingEngine) {
+				_history.record(_changes, generation);
+			} else {
+				_history.record(engine, generation, false);
+			}
+		}
+		if (detect) {
+			findCycle();
+		}
+		if (!measured) {
+			return;
+		}
+		samples.set(SAMPLE_GENERATION, engine.getGeneration());
+		samples.set(SAMPLE_STEP_NANOS, nanos);
+		samples.set(SAMPLE_POPULATION, engine.getPopulation());
+		samples.set(SAMPLE_CHANGED_CELLS, changed);
+		samples.set(SAMPLE_ALLOCATIONS, (counter == null) ? -1
+				: counter.getAllocations() - allocations);
+		samples.commit();
+	}
+
+	/**
+	 * Watches the generation just computed for a cycle.  Once one is found,
+	 * the frames of one more period are recorded, after which the engine
+	 * is no longer stepped and the recorded frames are replayed.  The hash
+	 * the cycle is detected by may collide, so the board is only replayed
+	 * if it came back to the generation it was detected at cell for cell.
+	 */
+	private void findCycle() {
+		if (_recorded >= 0) {
+			_cycleFrames[_recorded++].capture(engine);
+			if (_recorded == _period) {
+				_recorded = -1;
+				if (_cycleFrames[_period - 1].hasSameCells(_cycleStart)) {
+					_replaying = true;
+					_replayed = 0;
+				} else {
+					_cycles.reset();
+				}
+			}
+			return;
+		}
+		int period = _cycles.update(engine, _changes);
+		int words = engine.getHeight() * ((engine.getWidth() + 63) / 64);
+		if (period == 0 || (long) period * words > MAX_REPLAY_WORDS) {
+			return;
+		}
+		if (_cycleFrames == null || _cycleFrames.length < period) {
+			Frame[] larger = new Frame[period];
+			for (int i = 0; i < period; i++) {
+				larger[i] = (_cycleFrames != null && i < _cycleFrames.length)
+						? _cycleFrames[i]
+						: new Frame(engine.getHeight(), engine.getWidth());
+			}
+			_cycleFrames = larger;
+		}
+		if (_cycleStart == null) {
+			_cycleStart = new Frame(engine.getHeight(), engine.getWidth());
+		}
+		_cycleStart.capture(engine);
+		_period = period;
+		_recorded = 0;
+	}
+
+	/**
+	 * Stops replaying or recording a cycle before the engine is changed,
+	 * stepping the engine to the generation on screen.  The generations
+	 * replayed in whole periods were never computed and are kept as an
+	 * offset to the generation of the engine.
+	 */
+	private void leaveCycle() {
+		if (_replaying) {
+			int behind = (int) (_replayed % _period);
+			for (int i = 0; i < behind; i++) {
+				engine.step();
+			}
+			_generationOffset += _replayed - behind;
+			_replaying = false;
+			_mipmapValid = false;
+		}
+		_recorded = -1;
+		if (_cycles != null) {
+			_cycles.reset();
+		}
+	}
+
+	/**
+	 * Moves the history to a generation and loads it into the engine, the
+	 * frames of which then continue from that generation.
+	 */
+	private void seek(long generation) {
+		if (_history == null || !_history.seek(generation)) {
+			return;
+		}
+		_history.applyTo(engine);
+		_generationOffset = _history.getGeneration() - engine.getGeneration();
+	}
+
+	/**
+	 * Fills in the tile populations of a frame, copied from the ones kept
+	 * up to date with the engine, or counted from the frame after an edit,
+	 * while replaying a cycle or for engines that cannot list their changes.
+	 */
+	private void publishMipmap(Frame frame) {
+		PopulationMipmap mipmap = frame.mipmap();
+		if (_mipmapValid && !_replaying) {
+			mipmap.copyFrom(_mipmap);
+			return;
+		}
+		mipmap.rebuild(frame);
+		if (!_replaying) {
+			if (_mipmap == null) {
+				_mipmap = new PopulationMipmap(engine.getHeight(),
+						engine.getWidth());
+			}
+			_mipmap.copyFrom(mipmap);
+			_mipmapValid = true;
+		}
+	}
+
+	/**
+	 * Forgets which words changed after the engine was changed in a way
+	 * that is not tracked, so the next frames have to be compared whole.
+	 */
+	private void invalidateChanges() {
+		_olderChanges.invalidate();
+		_recentChanges.invalidate();
+	}
+
+	/**
+	 * Lists in a frame about to be published the words changed since the
+	 * older of the two tracked frames.  Once the consumer holds a frame at
+	 * least as new as the recent one, the changes since it are enough for
+	 * the consumer, and tracking starts over from the new frame.
+	 */
+	private void publishChanges(Frame frame) {
+		_serial++;
+		frame.setChanges(_serial, _olderSince, _olderChanges);
+		if (frames.getHeldSerial() >= _recentSince) {
+			ChangedWords older = _olderChanges;
+			_olderChanges = _recentChanges;
+			_olderSince = _recentSince;
+			_recentChanges = older;
+			_recentChanges.reset();
+			_recentSince = _serial;
+		}
+	}
+
+	/**
+	 * @return the recorded frame of the cycle being replayed that is shown.
+	 */
+	private Frame replayedFrame() {
+		// The engine holds the last frame of the cycle.
+		return _cycleFrames[(int) ((_replayed + _period - 1) % _period)];
+	}
+
+	/**
+	 * Copies the engine, or the replayed frame of a cycle, into a free
+	 * frame and publishes it.
+	 */
+	private Frame publishFrame() {
+		Frame frame = frames.acquireForWrite();
+		if (_replaying) {
+			frame.copyFrom(replayedFrame());
+			frame.setGeneration(engine.getGeneration() + _generationOffset
+					+ _replayed);
+			frame.setPeriod(_period);
+		} else {
+			frame.capture(engine);
+			frame.setGeneration(engine.getGeneration() + _generationOffset);
+		}
+		publishChanges(frame);
+		if (_mipmapsEnabled) {
+			publishMipmap(frame);
+		}
+		frames.publish(frame);
+		return frame;
+	}
+}
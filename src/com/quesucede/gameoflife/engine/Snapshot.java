@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Saved board, in a compact binary file written and read through memory
+ * mapped buffers, so even boards of millions of cells are saved and loaded
+ * in a few milliseconds.
+ *
+ * The file starts with a header holding the dimensions, rule, topology,
+ * generation and population of the board.  The body holds the rows of the
+ * board as 64 bit words laid out like a BitGrid, either as they are or with
+ * runs of empty words compressed, whichever is smaller.  A compressed body
+ * is a list of records, each the number of empty words followed by the
+ * number of literal words and the literal words themselves.  The file ends
+ * with a checksum over the header fields and every body word.
+ */
+public final class Snapshot {
+
+	// "LIFE" in ASCII, and the version of the format.
+	private static final int MAGIC = 0x4C494645;
+	private static final short VERSION = 1;
+
+	// Encodings of the body.
+	private static final byte RAW = 0;
+	private static final byte RUNS = 1;
+
+	// Size of the header in bytes.
+	private static final int HEADER_BYTES = 48;
+
+	// Largest board a snapshot may hold, in words of cells.
+	private static final long MAX_WORDS = 1L << 25;
+
+	private final int height;
+	private final int width;
+	private final long generation;
+	private final long population;
+	private final Rule rule;
+	private final Topology topology;
+
+	// Rows of cells, one word per 64 cells with each row on a new word.
+	private final long[] cells;
+
+	private Snapshot(int height, int width, long generation, long population,
+			Rule rule, Topology topology, long[] cells) {
+		this.height = height;
+		this.width = width;
+		this.generation = generation;
+		this.population = population;
+		this.rule = rule;
+		this.topology = topology;
+		this.cells = cells;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+
+	public long getPopulation() {
+		return population;
+	}
+
+	public Rule getRule() {
+		return rule;
+	}
+
+	public Topology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * @param y - row of the cell.
+	 * @param x - column of the cell.
+	 * @return true if the cell is alive.
+	 */
+	public boolean isAlive(int y, int x) {
+		int wordsPerRow = (width + 63) >>> 6;
+		return ((cells[y * wordsPerRow + (x >>> 6)] >>> x) & 1L) != 0;
+	}
+
+	/**
+	 * Saves a frame to a file, replacing it.
+	 *
+	 * @param file - the file to write.
+	 * @param frame - the generation to save.
+	 * @param rule - the rule the generation is computed with.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(File file, Frame frame, Rule rule)
+			throws IOException {
+		int height = frame.getHeight();
+		int wordsPerRow = frame.getWordsPerRow();
+
+		// Size the body both ways to pick the smaller one.
+		long rawWords = (long) height * wordsPerRow;
+		long runWords = 0;
+		int zeros = 0;
+		int literals = 0;
+		for (int y = 0; y < height; y++) {
+			for (int i = 0; i < wordsPerRow; i++) {
+				if (frame.getWord(y, i) == 0) {
+					if (literals > 0) {
+						runWords += 1 + literals;
+						literals = 0;
+						zeros = 0;
+					}
+					zeros++;
+				} else {
+					literals++;
+				}
+			}
+		}
+		if (zeros > 0 || literals > 0) {
+			runWords += 1 + literals;
+		}
+		byte encoding = (runWords < rawWords) ? RUNS : RAW;
+		long bodyWords = Math.min(runWords, rawWords);
+		long size = HEADER_BYTES + bodyWords * 8 + 8;
+
+		RandomAccessFile output = new RandomAccessFile(file, "rw");
+		try {
+			output.setLength(size);
+			FileChannel channel = output.getChannel();
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_WRITE, 0, size);
+
+			Checksum checksum = new Checksum();
+			buffer.putInt(MAGIC);
+			buffer.putShort(VERSION);
+			buffer.put(encoding);
+			buffer.put((byte) frame.getTopology().ordinal());
+			buffer.putInt(height);
+			buffer.putInt(frame.getWidth());
+			buffer.putLong(frame.getGeneration());
+			buffer.putLong(frame.getPopulation());
+			buffer.putInt(rule.getSurviveMask());
+			buffer.putInt(rule.getBirthMask());
+			buffer.putLong(bodyWords);
+			for (int offset = 0; offset < HEADER_BYTES; offset += 8) {
+				checksum.add(buffer.getLong(offset));
+			}
+
+			if (encoding == RAW) {
+				for (int y = 0; y < height; y++) {
+					for (int i = 0; i < wordsPerRow; i++) {
+						long word = frame.getWord(y, i);
+						buffer.putLong(word);
+						checksum.add(word);
+					}
+				}
+			} else {
+				writeRuns(buffer, frame, checksum);
+			}
+			buffer.putLong(checksum.value);
+			buffer.force();
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Writes the body as runs of empty words and literal words.  A record
+	 * header packs the number of empty words in its upper and the number
+	 * of literal words in its lower 32 bits.
+	 */
+	private static void writeRuns(ByteBuffer buffer, Frame frame,
+			Checksum checksum) {
+		int wordsPerRow = frame.getWordsPerRow();
+		long total = (long) frame.getHeight() * wordsPerRow;
+		long next = 0;
+		while (next < total) {
+			long zeros = 0;
+			while (next + zeros < total && word(frame, next + zeros) == 0) {
+				zeros++;
+			}
+			long literals = 0;
+			while (next + zeros + literals < total
+					&& word(frame, next + zeros + literals) != 0) {
+				literals++;
+			}
+			long record = (zeros << 32) | literals;
+			buffer.putLong(record);
+			checksum.add(record);
+			for (long i = 0; i < literals; i++) {
+				long word = word(frame, next + zeros + i);
+				buffer.putLong(word);
+				checksum.add(word);
+			}
+			next += zeros + literals;
+		}
+	}
+
+	private static long word(Frame frame, long index) {
+		int wordsPerRow = frame.getWordsPerRow();
+		return frame.getWord((int) (index / wordsPerRow),
+				(int) (index % wordsPerRow));
+	}
+
+	/**
+	 * Loads a snapshot from a file.
+	 *
+	 * @param file - the file to read.
+	 * @return the snapshot.
+	 * @throws IOException if the file cannot be read, or is not a valid
+	 *          snapshot.
+	 */
+	public static Snapshot read(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = input.getChannel();
+			long size = channel.size();
+			if (size < HEADER_BYTES + 8) {
+				throw new IOException("Snapshot " + file + " is truncated.");
+			}
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, size);
+
+			Checksum checksum = new Checksum();
+			for (int offset = 0; offset < HEADER_BYTES; offset += 8) {
+				checksum.add(buffer.getLong(offset));
+			}
+			if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+				throw new IOException(file + " is not a snapshot.");
+			}
+			byte encoding = buffer.get();
+			int topology = buffer.get();
+			int height = buffer.getInt();
+			int width = buffer.getInt();
+			long generation = buffer.getLong();
+			long population = buffer.getLong();
+			int surviveMask = buffer.getInt();
+			int birthMask = buffer.getInt();
+			long bodyWords = buffer.getLong();
+			if (height <= 0 || width <= 0 || (encoding != RAW
+					&& encoding != RUNS) || topology < 0
+					|| topology >= Topology.values().length
+					|| bodyWords < 0 || bodyWords > size / 8
+					|| size != HEADER_BYTES + bodyWords * 8 + 8) {
+				throw new IOException("Snapshot " + file
+						+ " has an invalid header.");
+			}
+
+			/* The body is checked against the dimensions before the board
+			 * is allocated, so a corrupt header cannot ask for more memory
+			 * than the file could ever fill. */
+			int wordsPerRow = (width + 63) >>> 6;
+			long words = (long) height * wordsPerRow;
+			if (words > MAX_WORDS || (encoding == RAW && bodyWords != words)
+					|| (encoding == RUNS && bodyWords > 2 * words)) {
+				throw new IOException("Snapshot " + file
+						+ " has an invalid body.");
+			}
+			long[] cells = new long[(int) words];
+			if (encoding == RAW) {
+				for (int i = 0; i < cells.length; i++) {
+					cells[i] = buffer.getLong();
+					checksum.add(cells[i]);
+				}
+			} else {
+				readRuns(buffer, bodyWords, cells, checksum, file);
+			}
+			if (buffer.getLong() != checksum.value) {
+				throw new IOException("Snapshot " + file
+						+ " fails its checksum.");
+			}
+			return new Snapshot(height, width, generation, population,
+					new Rule(surviveMask, birthMask),
+					Topology.values()[topology], cells);
+		} finally {
+			input.close();
+		}
+	}
+
+	private static void readRuns(ByteBuffer buffer, long bodyWords,
+			long[] cells, Checksum checksum, File file) throws IOException {
+		long read = 0;
+		int next = 0;
+		while (read < bodyWords) {
+			long record = buffer.getLong();
+			checksum.add(record);
+			long zeros = record >>> 32;
+			long literals = record & 0xffffffffL;
+			read += 1 + literals;
+			if (next + zeros + literals > cells.length || read > bodyWords) {
+				throw new IOException("Snapshot " + file
+						+ " has an invalid body.");
+			}
+			next += (int) zeros;
+			for (long i = 0; i < literals; i++) {
+				cells[next] = buffer.getLong();
+				checksum.add(cells[next++]);
+			}
+		}
+	}
+
+	/**
+	 * Loads the snapshot into an engine, along with its rule and topology.
+	 * On an engine of another size the saved board is centered, the cells
+	 * that do not fit being dropped, and an engine that cannot run the rule
+	 * keeps its own.
+	 *
+	 * @param engine - the engine, which is cleared first.
+	 */
+	public void applyTo(LifeEngine engine) {
+		try {
+			engine.setRule(rule);
+		} catch (IllegalArgumentException e) {
+			// Keeps the rule of the engine.
+		}
+		if (engine instanceof FiniteEngine) {
+			((FiniteEngine) engine).setTopology(topology);
+		}
+		if (engine instanceof BitGrid && engine.getHeight() == height
+				&& engine.getWidth() == width) {
+			((BitGrid) engine).setCells(cells);
+			return;
+		}
+		engine.clear();
+		int wordsPerRow = (width + 63) >>> 6;
+		// Board position of saved cell (0,0), negative on a smaller board.
+		int top = (engine.getHeight() - height) / 2;
+		int left = (engine.getWidth() - width) / 2;
+		int firstRow = Math.max(0, -top);
+		int endRow = Math.min(height, engine.getHeight() - top);
+		for (int y = firstRow; y < endRow; y++) {
+			for (int i = 0; i < wordsPerRow; i++) {
+				long word = cells[y * wordsPerRow + i];
+				while (word != 0) {
+					int x = (i << 6) + Long.numberOfTrailingZeros(word)
+							+ left;
+					word &= word - 1;
+					if (x >= 0 && x < engine.getWidth()) {
+						engine.setAlive(y + top, x, true);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Running checksum of 64 bit words, a multiply and rotate hash that is
+	 * cheap enough to run over every word while it is copied.
+	 */
+	private static final class Checksum {
+		long value = 0x6C69666500000001L;
+
+		void add(long word) {
+			value = Long.rotateLeft((value ^ word) * 0x9E3779B97F4A7C15L, 31);
+		}
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * Sparse engine storing only the living cells, as packed coordinates in a
+ * primitive hash set, so memory and stepping time follow the population
+ * rather than any board size.  Patterns travel freely over the plane
+ * instead of wrapping around the edges of the screen.
+ *
+ * Plane coordinates are ints, so the plane itself wraps around after 2^32
+ * cells in either direction, far beyond where any pattern that fits in
+ * memory could reach.  Rules where cells are born with zero neighbors (B0)
+ * are not supported, since they would fill the plane.
+ */
+public class SparseGrid implements PlaneEngine {
+
+	// Size of the window used by the LifeEngine methods.
+	private final int width;
+	private final int height;
+
+	// Plane coordinates of the top left corner of the window.
+	private long _originY;
+	private long _originX;
+
+	// The living cells and the set the next generation is collected in.
+	private CellMap _cells = new CellMap();
+	private CellMap _nextCells = new CellMap();
+
+	// Neighbor counts of every cell next to a living one, reused by steps.
+	private final CellMap _counts = new CellMap();
+
+	private Rule _rule = Rule.CONWAY;
+	private byte[] _table = Rule.CONWAY.toTable();
+	private long _generation;
+
+	/**
+	 * Constructor for the SparseGrid class, creates an empty plane viewed
+	 * through a window of the given size.
+	 *
+	 * @param height - number of rows of cells in the window.
+	 * @param width - number of columns of cells in the window.
+	 */
+	public SparseGrid(int height, int width) {
+		this.width = width;
+		this.height = height;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public void setOrigin(long y, long x) {
+		this._originY = y;
+		this._originX = x;
+	}
+
+	public long getOriginY() {
+		return _originY;
+	}
+
+	public long getOriginX() {
+		return _originX;
+	}
+
+	public boolean isAlive(int y, int x) {
+		return isAlive(_originY + y, _originX + x);
+	}
+
+	public void setAlive(int y, int x, boolean alive) {
+		setAlive(_originY + y, _originX + x, alive);
+	}
+
+	/**
+	 * @param y - plane row of the cell.
+	 * @param x - plane column of the cell.
+	 * @return true if the cell is alive.
+	 */
+	public boolean isAlive(long y, long x) {
+		return _cells.get(CellMap.key((int) y, (int) x)) >= 0;
+	}
+
+	/**
+	 * Sets the cell at plane coordinates (y,x) to alive or dead.
+	 *
+	 * @param y - plane row of the cell.
+	 * @param x - plane column of the cell.
+	 * @param alive - the new state of the cell.
+	 */
+	public void setAlive(long y, long x, boolean alive) {
+		long key = CellMap.key((int) y, (int) x);
+		if (!alive) {
+			_cells.remove(key);
+		} else if (_cells.get(key) < 0) {
+			_cells.add(key, 0);
+		}
+	}
+
+	public boolean getBounds(long[] bounds) {
+		CellMap cells = _cells;
+		if (cells.size() == 0) {
+			return false;
+		}
+		int top = Integer.MAX_VALUE;
+		int left = Integer.MAX_VALUE;
+		int bottom = Integer.MIN_VALUE;
+		int right = Integer.MIN_VALUE;
+		for (int slot = 0; slot < cells.capacity(); slot++) {
+			if (cells.slotValue(slot) < 0) {
+				continue;
+			}
+			long key = cells.slotKey(slot);
+			top = Math.min(top, CellMap.keyY(key));
+			bottom = Math.max(bottom, CellMap.keyY(key));
+			left = Math.min(left, CellMap.keyX(key));
+			right = Math.max(right, CellMap.keyX(key));
+		}
+		bounds[0] = top;
+		bounds[1] = left;
+		bounds[2] = bottom;
+		bounds[3] = right;
+		return true;
+	}
+
+	public void clear() {
+		_cells.clear(0);
+		_nextCells.clear(0);
+		_counts.clear(0);
+	}
+
+	public int countNeighbors(int y, int x) {
+		long planeY = _originY + y;
+		long planeX = _originX + x;
+		int total = isAlive(planeY, planeX) ? -1 : 0;
+		for (int h = -1; h <= +1; h++) {
+			for (int w = -1; w <= +1; w++) {
+				if (isAlive(planeY + h, planeX + w)) {
+					total++;
+				}
+			}
+		}
+		return total;
+	}
+
+	public long getPopulation() {
+		return _cells.size();
+	}
+
+	public long getGeneration() {
+		return _generation;
+	}
+
+	public Rule getRule() {
+		return _rule;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the rule is a B0 rule.
+	 */
+	public void setRule(Rule rule) {
+		if ((rule.getBirthMask() & 1) != 0) {
+			throw new IllegalArgumentException("SparseGrid does not support "
+					+ "rule " + rule + " with births on zero neighbors.");
+		}
+		this._rule = rule;
+		this._table = rule.toTable();
+	}
+
+	/**
+	 * Computes the next generation.  Every living cell adds one to the
+	 * counts of its eight neighbors and enters itself with no count, then
+	 * every counted cell is looked up in the transition table.
+	 */
+	public void step() {
+		CellMap cells = _cells;
+		CellMap counts = _counts;
+		counts.clear(cells.size() * 9);
+		for (int slot = 0; slot < cells.capacity(); slot++) {
+			if (cells.slotValue(slot) < 0) {
+				continue;
+			}
+			long key = cells.slotKey(slot);
+			int y = CellMap.keyY(key);
+			int x = CellMap.keyX(key);
+			counts.add(key, 0);
+			counts.add(CellMap.key(y - 1, x - 1), 1);
+			counts.add(CellMap.key(y - 1, x), 1);
+			counts.add(CellMap.key(y - 1, x + 1), 1);
+			counts.add(CellMap.key(y, x - 1), 1);
+			counts.add(CellMap.key(y, x + 1), 1);
+			counts.add(CellMap.key(y + 1, x - 1), 1);
+			counts.add(CellMap.key(y + 1, x), 1);
+			counts.add(CellMap.key(y + 1, x + 1), 1);
+		}
+
+		byte[] table = _table;
+		CellMap next = _nextCells;
+		next.clear(cells.size());
+		for (int slot = 0; slot < counts.capacity(); slot++) {
+			int count = counts.slotValue(slot);
+			if (count < 0) {
+				continue;
+			}
+			long key = counts.slotKey(slot);
+			int state = (cells.get(key) >= 0) ? 1 : 0;
+			if (table[state * Rule.TABLE_STRIDE + count] != 0) {
+				next.add(key, 0);
+			}
+		}
+
+		_nextCells = cells;
+		_cells = next;
+		_generation++;
+	}
+
+	/**
+	 * Copies the living cells inside the window into an array laid out like
+	 * the rows of a BitGrid.
+	 *
+	 * @param destination - array of at least height * ((width + 63) / 64)
+	 *          longs.
+	 */
+	public void copyCells(long[] destination) {
+		int wordsPerRow = (width + 63) / 64;
+		for (int i = 0; i < height * wordsPerRow; i++) {
+			destination[i] = 0;
+		}
+		CellMap cells = _cells;
+		for (int slot = 0; slot < cells.capacity(); slot++) {
+			if (cells.slotValue(slot) < 0) {
+				continue;
+			}
+			long key = cells.slotKey(slot);
+			// Window coordinates, wrapping like the plane does.
+			int y = CellMap.keyY(key) - (int) _originY;
+			int x = CellMap.keyX(key) - (int) _originX;
+			if (y >= 0 && y < height && x >= 0 && x < width) {
+				destination[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * How the edges of a finite board behave.
+ */
+public enum Topology {
+
+	/**
+	 * The board wraps around, cells on one edge neighbor those on the
+	 * opposite edge.
+	 */
+	TORUS,
+
+	/**
+	 * Everything beyond the edges of the board is permanently dead.
+	 */
+	BOUNDED;
+
+	/**
+	 * Parses a topology name as stored in the preferences, defaulting to
+	 * the torus.
+	 *
+	 * @param name - name of the topology.
+	 * @return the matching topology.
+	 */
+	public static Topology fromName(String name) {
+		return BOUNDED.name().equals(name) ? BOUNDED : TORUS;
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at 
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+/**
+ * This application is based off of the tutorial for Conway's Game of Life 
+ * by Brett Kromkamp available at: 
+ * http://www.quesucede.com/page/show/id/conway_game_of_life_android
+ *
+ * @author  Peter Sevich (pas2363)
+ * @author  Jonathon Shippling (jjs5471)
+ */
+
+package com.quesucede.gameoflife.engine;
+
+/**
+ * An engine that can list the cells each generation changed, so that
+ * drawing, statistics and history can work in proportion to the changes
+ * rather than to the size of the board.
+ */
+public interface TrackingEngine extends LifeEngine {
+
+	/**
+	 * Computes the next generation and records the cells it changed.
+	 *
+	 * @param changes - emptied and filled with the cells born and the cells
+	 *            that died, or null to step without recording.
+	 */
+	void step(ChangeList changes);
+}
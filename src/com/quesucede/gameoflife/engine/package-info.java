@@ -0,0 +1,6 @@
+/**
+ * Pure Java Game of Life simulation core.  Nothing in this package depends on
+ * Android, so engines can be run and measured on a plain JVM; the activities
+ * and views wrap them for display.
+ */
+package com.quesucede.gameoflife.engine;